@@ -0,0 +1,445 @@
+package controller;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import model.TextOperation;
+import service.CollaborationClient;
+import service.CollaborationServer;
+
+/**
+ * Keeps an editor document in sync with a collaboration server.
+ *
+ * Local edits are turned into operations and batched: edits made while a
+ * batch is waiting to be sent, or while the previous batch is not yet
+ * acknowledged, are composed into one operation. At most one batch is in
+ * flight, and batches are sent at most every FLUSH_DELAY_MILLIS.
+ *
+ * Remote operations are decoded on the network thread, and consecutive
+ * ones are queued there as one batch. The UI thread transforms the local
+ * edits the server has not seen yet past each remote operation in turn,
+ * exactly as the server transforms them, and applies the composition of the
+ * transformed remote operations to the document in one pass. However fast
+ * remote edits arrive, the UI thread handles one batch per wake-up.
+ *
+ * All methods except the CollaborationClient.Listener callbacks run on the
+ * event dispatch thread.
+ */
+public class CollaborationSession implements CollaborationClient.Listener {
+
+    /** Time local edits are collected before they are sent as one batch. */
+    private static final int FLUSH_DELAY_MILLIS = 25;
+
+    private final Document document;
+    private final CollaborationClient client;
+    private final CollaborationServer server;
+    private final Consumer<IOException> onDisconnected;
+    private final Runnable onRemoteApplied;
+    private final DocumentListener documentListener;
+    private final Timer flushTimer;
+
+    /** Number of server operations this client has seen */
+    private int revision;
+    /** Last revision the server knows this client has seen */
+    private int reportedRevision;
+    /** Local operation sent to the server and not yet acknowledged, or null */
+    private TextOperation outstanding;
+    /** Local edits made since the outstanding operation was sent, or null */
+    private TextOperation buffer;
+    /** Flag set while remote edits are applied, so they are not sent back */
+    private boolean applyingRemote = false;
+    private boolean closed = false;
+
+    /** Messages decoded by the network thread, guarded by itself */
+    private final Deque<Incoming> incoming = new ArrayDeque<>();
+    /** Whether a drain of the incoming messages is already queued on the UI thread */
+    private boolean drainScheduled = false;
+
+    /**
+     * A message waiting to be handled on the UI thread: an acknowledgement,
+     * or one or more consecutive remote operations.
+     */
+    private static class Incoming {
+
+        /** Remote operations in server order, or null for an acknowledgement */
+        private final List<TextOperation> operations;
+
+        /**
+         * Constructor that creates a message.
+         *
+         * @param operation  the first remote operation, or null for an acknowledgement
+         */
+        Incoming(TextOperation operation) {
+            if (operation == null) {
+                this.operations = null;
+            } else {
+                this.operations = new ArrayList<>();
+                this.operations.add(operation);
+            }
+        }
+    }
+
+    /**
+     * Constructor that starts syncing a document.
+     * The document must already hold the text received by the client.
+     *
+     * @param document        the editor document
+     * @param client          the connection to the server
+     * @param server           the server hosted by this editor, or null when joining another
+     * @param onDisconnected   called on the UI thread if the connection is lost
+     * @param onRemoteApplied  called on the UI thread once after each batch of remote edits
+     */
+    public CollaborationSession(
+        Document document,
+        CollaborationClient client,
+        CollaborationServer server,
+        Consumer<IOException> onDisconnected,
+        Runnable onRemoteApplied
+    ) {
+        this.document = document;
+        this.client = client;
+        this.server = server;
+        this.onDisconnected = onDisconnected;
+        this.onRemoteApplied = onRemoteApplied;
+        this.revision = client.getRevision();
+        this.reportedRevision = revision;
+
+        flushTimer = new Timer(FLUSH_DELAY_MILLIS, e -> flush());
+        flushTimer.setRepeats(false);
+
+        documentListener = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent documentEvent) {
+                localInsert(documentEvent.getOffset(), documentEvent.getLength());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent documentEvent) {
+                localRemove(documentEvent.getOffset(), documentEvent.getLength());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent documentEvent) {
+                // Attribute changes do not exist in plain text
+            }
+        };
+        document.addDocumentListener(documentListener);
+
+        client.start(this);
+    }
+
+    /**
+     * Checks whether this editor hosts the server of the session.
+     *
+     * @return true if hosting, false if joined
+     */
+    public boolean isHosting() {
+        return this.server != null;
+    }
+
+    /**
+     * Checks whether remote edits are being applied to the document.
+     * Document listeners can use this to handle a whole batch once,
+     * when onRemoteApplied is called, instead of once per edit.
+     *
+     * @return true while a batch of remote edits is applied, false otherwise
+     */
+    public boolean isApplyingRemote() {
+        return this.applyingRemote;
+    }
+
+    /**
+     * Ends the session: local edits are no longer sent, and a hosted server is stopped.
+     * Edits not yet sent are dropped.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        flushTimer.stop();
+        document.removeDocumentListener(documentListener);
+        client.close();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * Records a local insert.
+     *
+     * @param offset  the offset of the inserted text
+     * @param length  the length of the inserted text
+     */
+    private void localInsert(int offset, int length) {
+        if (applyingRemote) {
+            return;
+        }
+
+        try {
+            String text = document.getText(offset, length);
+            addLocal(
+                new TextOperation()
+                    .retain(offset)
+                    .insert(text)
+                    .retain(document.getLength() - offset - length)
+            );
+        } catch (BadLocationException e) {
+            // Cannot happen: the event describes text that is in the document
+        }
+    }
+
+    /**
+     * Records a local removal.
+     *
+     * @param offset  the offset of the removed text
+     * @param length  the length of the removed text
+     */
+    private void localRemove(int offset, int length) {
+        if (applyingRemote) {
+            return;
+        }
+
+        addLocal(
+            new TextOperation()
+                .retain(offset)
+                .delete(length)
+                .retain(document.getLength() - offset)
+        );
+    }
+
+    /**
+     * Adds a local edit to the buffer and schedules sending it.
+     *
+     * @param operation  the edit
+     */
+    private void addLocal(TextOperation operation) {
+        buffer = buffer == null ? operation : buffer.compose(operation);
+
+        if (outstanding == null && !flushTimer.isRunning()) {
+            flushTimer.start();
+        }
+    }
+
+    /**
+     * Sends the buffered local edits, unless a batch is still in flight.
+     * Without local edits, reports the revision seen instead, so the server
+     * can drop history this client no longer needs.
+     */
+    private void flush() {
+        if (closed || outstanding != null) {
+            return;
+        }
+
+        if (buffer == null) {
+            if (revision > reportedRevision) {
+                client.sendSeen(revision);
+                reportedRevision = revision;
+            }
+            return;
+        }
+
+        outstanding = buffer;
+        buffer = null;
+        client.send(revision, outstanding);
+        reportedRevision = revision;
+    }
+
+    /**
+     * Queues an acknowledgement. Called on the network thread.
+     */
+    @Override
+    public void acknowledged() {
+        enqueue(null);
+    }
+
+    /**
+     * Queues a remote operation, batching it with remote operations
+     * that are still waiting. Called on the network thread.
+     *
+     * @param operation  the remote operation
+     */
+    @Override
+    public void remoteOperation(TextOperation operation) {
+        enqueue(operation);
+    }
+
+    /**
+     * Reports a lost connection on the UI thread. Called on the network thread.
+     *
+     * @param cause  the error, or null if the session was closed locally
+     */
+    @Override
+    public void disconnected(IOException cause) {
+        if (cause != null) {
+            SwingUtilities.invokeLater(() -> {
+                if (!closed) {
+                    close();
+                    onDisconnected.accept(cause);
+                }
+            });
+        }
+    }
+
+    /**
+     * Adds a message to the incoming queue and wakes up the UI thread if needed.
+     *
+     * @param operation  a remote operation, or null for an acknowledgement
+     */
+    private void enqueue(TextOperation operation) {
+        synchronized (incoming) {
+            Incoming last = incoming.peekLast();
+
+            // Consecutive remote operations are handled as one batch
+            if (operation != null && last != null && last.operations != null) {
+                last.operations.add(operation);
+            } else {
+                incoming.addLast(new Incoming(operation));
+            }
+
+            if (!drainScheduled) {
+                drainScheduled = true;
+                SwingUtilities.invokeLater(this::drain);
+            }
+        }
+    }
+
+    /**
+     * Handles all queued messages, in order.
+     */
+    private void drain() {
+        List<Incoming> messages;
+        synchronized (incoming) {
+            messages = new ArrayList<>(incoming);
+            incoming.clear();
+            drainScheduled = false;
+        }
+
+        for (Incoming message : messages) {
+            if (closed) {
+                return;
+            }
+
+            if (message.operations == null) {
+                handleAcknowledgement();
+            } else {
+                handleRemote(message.operations);
+            }
+        }
+    }
+
+    /**
+     * Completes the outstanding operation and lets the buffer be sent.
+     */
+    private void handleAcknowledgement() {
+        revision++;
+        outstanding = null;
+
+        if (buffer != null && !flushTimer.isRunning()) {
+            flushTimer.start();
+        }
+    }
+
+    /**
+     * Transforms the unacknowledged local edits past remote operations
+     * and applies the remote operations to the document.
+     * Each remote operation is transformed on its own, in server order:
+     * transforming against their composition instead breaks ties between
+     * inserts at the same position differently than the server does.
+     *
+     * @param operations  the remote operations, in server order
+     */
+    private void handleRemote(List<TextOperation> operations) {
+        TextOperation applied = null;
+
+        try {
+            for (TextOperation operation : operations) {
+                revision++;
+
+                // The server applied the remote edit first, so local edits move past it
+                if (outstanding != null) {
+                    TextOperation[] pair = TextOperation.transform(outstanding, operation);
+                    outstanding = pair[0];
+                    operation = pair[1];
+                }
+                if (buffer != null) {
+                    TextOperation[] pair = TextOperation.transform(buffer, operation);
+                    buffer = pair[0];
+                    operation = pair[1];
+                }
+
+                // Only the document update is batched
+                applied = applied == null ? operation : applied.compose(operation);
+            }
+        } catch (IllegalArgumentException e) {
+            desynchronized();
+            return;
+        }
+
+        applyRemote(applied);
+
+        // Report the new revision along with the next batch, or on its own
+        if (outstanding == null && !flushTimer.isRunning()) {
+            flushTimer.start();
+        }
+    }
+
+    /**
+     * Ends a session whose document no longer matches the server's.
+     */
+    private void desynchronized() {
+        close();
+        onDisconnected.accept(new IOException("The document is out of sync with the session"));
+    }
+
+    /**
+     * Applies a remote operation to the document, component by component,
+     * so only the changed lines are laid out and repainted again.
+     * onRemoteApplied is called once afterwards.
+     *
+     * @param operation  the operation, transformed to fit the document
+     */
+    private void applyRemote(TextOperation operation) {
+        if (operation.getBaseLength() != document.getLength()) {
+            desynchronized();
+            return;
+        }
+
+        applyingRemote = true;
+        try {
+            int position = 0;
+            for (TextOperation.Component component : operation.getComponents()) {
+                switch (component.getKind()) {
+                    case RETAIN:
+                        position += component.getLength();
+                        break;
+                    case INSERT:
+                        document.insertString(position, component.getText(), null);
+                        position += component.getLength();
+                        break;
+                    case DELETE:
+                        document.remove(position, component.getLength());
+                        break;
+                }
+            }
+        } catch (BadLocationException e) {
+            // Cannot happen: the length of the document was checked above
+        } finally {
+            applyingRemote = false;
+        }
+
+        if (!operation.isNoop()) {
+            onRemoteApplied.run();
+        }
+    }
+}
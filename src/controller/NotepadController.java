@@ -3,16 +3,43 @@ package controller;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultCaret;
+import javax.swing.text.Document;
+import model.BinaryDocument;
 import model.DocumentModel;
+import model.SessionDocument;
+import model.SessionState;
+import service.CodecRegistry;
+import service.CollaborationClient;
+import service.CollaborationServer;
+import service.CompressionCodec;
 import service.FileService;
+import service.SessionService;
+import service.UndoHistoryService;
+import view.FontCache;
+import view.HexViewPanel;
 import view.NotepadWindow;
+import view.TextEditorPanel;
 
 /**
  * Controller class that manages user interactions and coordinates
@@ -23,6 +50,21 @@ public class NotepadController {
     private NotepadWindow notepadWindow;
     private DocumentModel documentModel;
 
+    /** Binary file shown in the hex view, or null when editing text */
+    private BinaryDocument binaryDocument;
+    /** Background byte-pattern search currently running, if any */
+    private SwingWorker<Long, Void> searchWorker;
+
+    /** Interval between background session saves, in milliseconds */
+    private static final int SESSION_SAVE_INTERVAL = 5000;
+    /** Minimum interval between periodic rewrites of a large edited buffer, in milliseconds */
+    private static final int LARGE_BUFFER_SAVE_INTERVAL = 60000;
+
+    /** Background load of a file or buffer currently running, if any */
+    private SwingWorker<Void, String> loadWorker;
+    /** Flag to indicate that text is being streamed into the editor by a background load */
+    private boolean isLoading = false;
+
     /** Stack containing previous document states for undo functionality */
     private Stack<String> undoStack = new Stack<>();
     /** Stack containing reverted states for redo functionality */
@@ -34,6 +76,41 @@ public class NotepadController {
     /** Flag to indicate if the current update is triggered by an undo operation */
     private boolean isUndo = false;
 
+    /** Maximum number of undo states kept; reduced in large document mode */
+    private int undoLimit = Integer.MAX_VALUE;
+
+    /** Whether model sync waits for a pause in typing instead of running on every edit */
+    private boolean deferTextSync = false;
+    /** Timer that syncs the model once typing pauses, while sync is deferred */
+    private Timer textSyncTimer;
+
+    /** Governor that degrades features while the document or the system is under pressure */
+    private PerformanceGovernor governor;
+
+    /** Key listener recording undo states, attached to every view of the document */
+    private KeyAdapter undoKeyListener;
+
+    /** Collaborative editing session of the active document, or null if not collaborating */
+    private CollaborationSession collaboration;
+    /** Background connection to a collaboration session being set up, or null */
+    private SwingWorker<CollaborationClient, Void> connectWorker;
+
+    /** Documents of the editing session, in Documents menu order */
+    private List<SessionDocument> sessionDocuments = new ArrayList<>();
+    /** Session document shown in the editor, or null while the hex view is shown */
+    private SessionDocument activeDocument;
+    /** Identifier handed out to the next new session document */
+    private long nextDocumentId = 1;
+    /** Unsaved texts last written to the session directory, by document id */
+    private Map<Long, String> writtenBuffers = new HashMap<>();
+    /** Time the buffer of the active document was last written, in milliseconds */
+    private long activeBufferWrittenAt = 0;
+
+    /** Opened file whose persisted undo history has not been loaded yet */
+    private File pendingHistoryFile;
+    /** Document content at open time, the base of the persisted history */
+    private String openedText;
+
     /**
      * Constructor that initializes the controller and sets up menu action listeners.
      *
@@ -48,11 +125,19 @@ public class NotepadController {
         this.documentModel = documentModel;
         JTextArea textArea = notepadWindow.getTextEditorPanel().getTextArea();
 
+        // Create the timer used to sync the model after typing pauses
+        textSyncTimer = new Timer(300, e -> syncModelText());
+        textSyncTimer.setRepeats(false);
+
         // Add document listener to sync model with view on every text change
         textArea.getDocument().addDocumentListener(
             new DocumentListener() {
                 @Override
                 public void insertUpdate(DocumentEvent documentEvent) {
+                    // Remote edits are handled once per batch, after the session applied them
+                    if (isApplyingRemote()) {
+                        return;
+                    }
                     onTextChanged();
                     // If this is a new user action (not an undo), clear the redo history
                     if (!isUndo) {
@@ -65,6 +150,9 @@ public class NotepadController {
 
                 @Override
                 public void removeUpdate(DocumentEvent documentEvent) {
+                    if (isApplyingRemote()) {
+                        return;
+                    }
                     onTextChanged();
                 }
 
@@ -76,41 +164,40 @@ public class NotepadController {
         );
 
         // Add key listener to save state at appropriate moments for undo functionality
-        textArea.addKeyListener(
-            new KeyAdapter() {
-                @Override
-                public void keyPressed(KeyEvent e) {
-                    int keyCode = e.getKeyCode();
-
-                    // Save state before destructive actions (backspace, delete)
-                    if (
-                        keyCode == KeyEvent.VK_BACK_SPACE ||
-                        keyCode == KeyEvent.VK_DELETE
-                    ) {
-                        saveState();
-                        redoStack.clear();
-                    }
+        undoKeyListener = new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                int keyCode = e.getKeyCode();
+
+                // Save state before destructive actions (backspace, delete)
+                if (
+                    keyCode == KeyEvent.VK_BACK_SPACE ||
+                    keyCode == KeyEvent.VK_DELETE
+                ) {
+                    saveState();
+                    redoStack.clear();
                 }
+            }
 
-                @Override
-                public void keyTyped(KeyEvent e) {
-                    char c = e.getKeyChar();
-
-                    // Save state after word completion (space, enter, punctuation)
-                    if (
-                        c == ' ' ||
-                        c == '\n' ||
-                        c == '.' ||
-                        c == ',' ||
-                        c == '!' ||
-                        c == '?'
-                    ) {
-                        saveState();
-                        redoStack.clear();
-                    }
+            @Override
+            public void keyTyped(KeyEvent e) {
+                char c = e.getKeyChar();
+
+                // Save state after word completion (space, enter, punctuation)
+                if (
+                    c == ' ' ||
+                    c == '\n' ||
+                    c == '.' ||
+                    c == ',' ||
+                    c == '!' ||
+                    c == '?'
+                ) {
+                    saveState();
+                    redoStack.clear();
                 }
             }
-        );
+        };
+        textArea.addKeyListener(undoKeyListener);
 
         // Get menu references
         JMenu fileMenu = notepadWindow.getAppMenuBar().getFileMenu();
@@ -120,6 +207,7 @@ public class NotepadController {
         fileMenu.getItem(0).addActionListener(e -> saveFile());
         fileMenu.getItem(1).addActionListener(e -> saveAsFile());
         fileMenu.getItem(2).addActionListener(e -> openFile());
+        fileMenu.getItem(3).addActionListener(e -> closeDocument());
 
         // Set keyboard shortcuts for File menu
         fileMenu
@@ -137,6 +225,27 @@ public class NotepadController {
             .setAccelerator(
                 KeyStroke.getKeyStroke(KeyEvent.VK_O, KeyEvent.CTRL_DOWN_MASK)
             );
+        fileMenu
+            .getItem(3)
+            .setAccelerator(
+                KeyStroke.getKeyStroke(KeyEvent.VK_W, KeyEvent.CTRL_DOWN_MASK)
+            );
+
+        // Rebuild the Documents menu each time it opens
+        notepadWindow.getAppMenuBar().getDocumentsMenu().addMenuListener(
+            new MenuListener() {
+                @Override
+                public void menuSelected(MenuEvent e) {
+                    rebuildDocumentsMenu();
+                }
+
+                @Override
+                public void menuDeselected(MenuEvent e) {}
+
+                @Override
+                public void menuCanceled(MenuEvent e) {}
+            }
+        );
 
         // Attach action listeners and shortcuts to Edit menu items
         editMenu.getItem(0).addActionListener(e -> undoState());
@@ -151,6 +260,37 @@ public class NotepadController {
             .setAccelerator(
                 KeyStroke.getKeyStroke(KeyEvent.VK_Y, KeyEvent.CTRL_DOWN_MASK)
             );
+        editMenu.getItem(2).addActionListener(e -> goToOffset());
+        editMenu
+            .getItem(2)
+            .setAccelerator(
+                KeyStroke.getKeyStroke(KeyEvent.VK_G, KeyEvent.CTRL_DOWN_MASK)
+            );
+        editMenu.getItem(3).addActionListener(e -> findBytes());
+        editMenu
+            .getItem(3)
+            .setAccelerator(
+                KeyStroke.getKeyStroke(KeyEvent.VK_F, KeyEvent.CTRL_DOWN_MASK)
+            );
+
+        // Hex view actions are only available while a binary file is open
+        setHexActionsEnabled(false);
+
+        // Attach action listener and shortcut to View menu items
+        JMenu viewMenu = notepadWindow.getAppMenuBar().getViewMenu();
+        viewMenu.getItem(0).addActionListener(e -> toggleSplitView());
+        viewMenu
+            .getItem(0)
+            .setAccelerator(
+                KeyStroke.getKeyStroke(KeyEvent.VK_E, KeyEvent.CTRL_DOWN_MASK)
+            );
+
+        // Attach action listeners to Collaborate menu items
+        JMenu collaborateMenu = notepadWindow.getAppMenuBar().getCollaborateMenu();
+        collaborateMenu.getItem(0).addActionListener(e -> hostSession());
+        collaborateMenu.getItem(1).addActionListener(e -> joinSession());
+        collaborateMenu.getItem(2).addActionListener(e -> leaveSession());
+        setCollaborationActionsEnabled(false);
 
         // Attach action listeners to Format > Font submenu items
         JMenu fontMenu = notepadWindow.getAppMenuBar().getFontMenu();
@@ -167,6 +307,61 @@ public class NotepadController {
             int size = Integer.parseInt(sizeItem.getText());
             sizeItem.addActionListener(e -> changeFontSize(size));
         }
+
+        // Start watching document size, heap, and UI latency
+        governor = new PerformanceGovernor(
+            () -> textArea.getDocument().getLength(),
+            this::applyGovernorChange
+        );
+        governor.start();
+
+        // Reopen the documents of the previous session
+        restoreSession();
+
+        // Save the session periodically, and once more when the window closes
+        new Timer(SESSION_SAVE_INTERVAL, e -> saveSession(false)).start();
+        notepadWindow.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        notepadWindow.addWindowListener(
+            new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent e) {
+                    exitApplication();
+                }
+            }
+        );
+    }
+
+    /**
+     * Saves the session and exits once it is written.
+     * The window is hidden right away, so the UI thread is never held up by
+     * the final save. If the session cannot be written, the window comes back
+     * and the user chooses whether to exit anyway.
+     */
+    private void exitApplication() {
+        leaveSession();
+        notepadWindow.setVisible(false);
+
+        saveSession(true).whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                notepadWindow.setVisible(true);
+                int result = JOptionPane.showConfirmDialog(
+                    notepadWindow,
+                    "The session cannot be saved. Unsaved changes will not be restored " +
+                        "next time.\nExit anyway?",
+                    "Session error",
+                    JOptionPane.YES_NO_OPTION,
+                    JOptionPane.WARNING_MESSAGE
+                );
+
+                // User chose to keep working
+                if (result != JOptionPane.YES_OPTION) {
+                    return;
+                }
+            }
+
+            notepadWindow.dispose();
+            System.exit(0);
+        }));
     }
 
     /**
@@ -174,6 +369,15 @@ public class NotepadController {
      * If no file is associated, delegates to saveAsFile().
      */
     public void saveFile() {
+        if (binaryDocument != null) {
+            showReadOnlyMessage();
+            return;
+        }
+        if (isLoading) {
+            showLoadingMessage();
+            return;
+        }
+
         File file = documentModel.getFile();
 
         // If no file exists, prompt user to choose one
@@ -181,6 +385,7 @@ public class NotepadController {
             saveAsFile();
         } else {
             // Get current text from the model
+            flushTextSync();
             String text = documentModel.getText();
 
             // Update model
@@ -190,6 +395,7 @@ public class NotepadController {
             // Save to file
             try {
                 FileService.saveFile(file, text);
+                persistUndoHistory(file);
             } catch (IOException e) {
                 JOptionPane.showMessageDialog(
                     notepadWindow,
@@ -207,12 +413,30 @@ public class NotepadController {
      * Asks for confirmation before overwriting existing files.
      */
     public void saveAsFile() {
+        if (binaryDocument != null) {
+            showReadOnlyMessage();
+            return;
+        }
+        if (isLoading) {
+            showLoadingMessage();
+            return;
+        }
+
         // Create and configure file chooser
         JFileChooser chooser = new JFileChooser();
         FileNameExtensionFilter filter = new FileNameExtensionFilter(
             "Text File(*.txt)",
             "txt"
         );
+        // Offer one compressed variant per registered codec extension
+        for (String extension : CodecRegistry.getExtensions()) {
+            chooser.addChoosableFileFilter(
+                new FileNameExtensionFilter(
+                    "Compressed Text File(*.txt." + extension + ")",
+                    extension
+                )
+            );
+        }
         chooser.setFileFilter(filter);
         chooser.setDialogTitle("Save File");
         chooser.setApproveButtonText("Save");
@@ -223,9 +447,19 @@ public class NotepadController {
         ) {
             File file = chooser.getSelectedFile();
 
-            // Auto-append .txt extension if missing
-            if (!file.getName().toLowerCase().endsWith(".txt")) {
-                file = new File(file.getAbsolutePath() + ".txt");
+            // Auto-append .txt extension if missing, keeping compressed extensions
+            String name = file.getName().toLowerCase();
+            if (!name.endsWith(".txt") && CodecRegistry.forFile(file) == null) {
+                String extension = ".txt";
+                // A compressed filter adds its own extension as well; "All Files" acts as plain text
+                if (
+                    chooser.getFileFilter() != filter &&
+                    chooser.getFileFilter() instanceof FileNameExtensionFilter
+                ) {
+                    FileNameExtensionFilter chosen = (FileNameExtensionFilter) chooser.getFileFilter();
+                    extension += "." + chosen.getExtensions()[0];
+                }
+                file = new File(file.getAbsolutePath() + extension);
             }
 
             // Confirm overwrite if file already exists
@@ -247,14 +481,19 @@ public class NotepadController {
             }
 
             // Get current text from model and update file reference
+            flushTextSync();
             String text = documentModel.getText();
             documentModel.setFile(file);
+            if (activeDocument != null) {
+                activeDocument.setFile(file);
+            }
             documentModel.setModified(false);
             updateWindowTitle();
 
             // Save to file
             try {
                 FileService.saveFile(file, text);
+                persistUndoHistory(file);
             } catch (IOException e) {
                 JOptionPane.showMessageDialog(
                     notepadWindow,
@@ -267,15 +506,21 @@ public class NotepadController {
     }
 
     /**
-     * Opens a file dialog to load an existing text file.
-     * Replaces the current text area content with the file content.
+     * Opens a file dialog to load an existing file.
+     * Text files become the active session document; binary files are shown
+     * read-only in the hex view instead of being decoded, and compressed
+     * files are decompressed in the background. A file that is already
+     * open in the session is simply activated.
      */
     public void openFile() {
         // Create and configure file chooser
         JFileChooser chooser = new JFileChooser();
+        List<String> extensions = new ArrayList<>();
+        extensions.add("txt");
+        extensions.addAll(CodecRegistry.getExtensions());
         FileNameExtensionFilter filter = new FileNameExtensionFilter(
-            "Text File(*.txt)",
-            "txt"
+            "Text File(*." + String.join(", *.", extensions) + ")",
+            extensions.toArray(new String[0])
         );
         chooser.setFileFilter(filter);
         chooser.setDialogTitle("Open File");
@@ -287,17 +532,59 @@ public class NotepadController {
         ) {
             File file = chooser.getSelectedFile();
 
-            // Update model with new file reference
-            documentModel.setFile(file);
-            documentModel.setModified(false);
+            // Bring an already open document to the front instead of reading it again
+            SessionDocument existing = findSessionDocument(file);
+            if (existing != null) {
+                activateDocument(existing);
+                return;
+            }
 
-            updateWindowTitle();
+            // Detect binary content before trying to decode the file as text
+            CompressionCodec codec = CodecRegistry.forFile(file);
+            try {
+                if (FileService.isBinaryFile(file)) {
+                    // The hex view shows raw bytes, which for a compressed file are not its content
+                    if (codec != null) {
+                        JOptionPane.showMessageDialog(
+                            notepadWindow,
+                            "The compressed file does not contain text",
+                            "Open error",
+                            JOptionPane.ERROR_MESSAGE
+                        );
+                        return;
+                    }
+                    openBinaryFile(file);
+                    return;
+                }
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(
+                    notepadWindow,
+                    "The file cannot be opened",
+                    "Open error",
+                    JOptionPane.ERROR_MESSAGE
+                );
+                return;
+            }
 
-            // Read file and display content
+            // Compressed files are decompressed on a background thread
+            if (codec != null) {
+                stashActiveDocument();
+                closeBinaryDocument();
+                startDocument(file);
+                loadInBackground(
+                    consumer -> FileService.streamFile(file, consumer),
+                    "Decompressing " + codec.getName() + " file...",
+                    0,
+                    new Point(0, 0),
+                    text -> resetUndoHistory(file, text)
+                );
+                return;
+            }
+
+            // Read file before touching the current document, so a failure changes nothing
+            String text;
             try {
-                String text = FileService.readFile(file);
-                documentModel.setText(text);
-                notepadWindow.getTextEditorPanel().getTextArea().setText(text);
+                text = FileService.readFile(file);
             } catch (IOException e) {
                 JOptionPane.showMessageDialog(
                     notepadWindow,
@@ -305,115 +592,1434 @@ public class NotepadController {
                     "Open error",
                     JOptionPane.ERROR_MESSAGE
                 );
+                return;
             }
+
+            // Keep the current document in the session and leave the hex view
+            stashActiveDocument();
+            closeBinaryDocument();
+
+            // Display content; the persisted history is loaded on first undo
+            startDocument(file);
+            showText(text, false, 0, new Point(0, 0));
+            resetUndoHistory(file, text);
         }
     }
 
     /**
-     * Handles text changes in the text area.
-     * Syncs the model with the view and updates the window title.
+     * Streams text into the editor on a background thread.
+     * The text is appended in chunks as it arrives and the editor is
+     * read-only until the load finishes. The saved caret and scroll position
+     * are applied as soon as the text up to the caret has arrived, so the
+     * visible region appears before the rest of the document.
+     *
+     * @param source        produces the text in chunks
+     * @param statusText    the status bar text shown while loading
+     * @param caret         the caret position to restore
+     * @param viewPosition  the viewport position to restore
+     * @param onLoaded      receives the complete text once loading succeeded
      */
-    private void onTextChanged() {
-        JTextArea textArea = notepadWindow.getTextEditorPanel().getTextArea();
-        documentModel.setText(textArea.getText());
-        documentModel.setModified(true);
-        updateWindowTitle();
+    private void loadInBackground(
+        TextSource source,
+        String statusText,
+        int caret,
+        Point viewPosition,
+        Consumer<String> onLoaded
+    ) {
+        TextEditorPanel editorPanel = notepadWindow.getTextEditorPanel();
+        boolean modified = documentModel.isModified();
+
+        // Empty the editor while the text streams in
+        showText("", modified, 0, new Point(0, 0));
+        isLoading = true;
+        editorPanel.setEditable(false);
+        // Keep the carets (and the views) from following the appended text
+        for (JTextArea area : editorPanel.getTextAreas()) {
+            ((DefaultCaret) area.getCaret()).setUpdatePolicy(DefaultCaret.NEVER_UPDATE);
+        }
+        notepadWindow.getStatusBar().setStatus(statusText);
+
+        loadWorker = new SwingWorker<>() {
+            /** Whether the saved caret and scroll position have been applied */
+            private boolean positioned = false;
+
+            @Override
+            protected Void doInBackground() throws Exception {
+                source.stream(chunk -> publish(chunk));
+                return null;
+            }
+
+            @Override
+            protected void process(List<String> chunks) {
+                // Chunks may still arrive after another document was activated
+                if (isCancelled()) {
+                    return;
+                }
+
+                // Append all chunks delivered since the last update in one pass
+                Document document = editorPanel.getTextArea().getDocument();
+                try {
+                    for (String chunk : chunks) {
+                        document.insertString(document.getLength(), chunk, null);
+                    }
+                } catch (BadLocationException e) {
+                    // Cannot happen: text is always appended at the end
+                }
+
+                // Show the saved position as soon as its text is there
+                if (!positioned && document.getLength() >= caret) {
+                    positioned = true;
+                    restorePosition(caret, viewPosition);
+                }
+
+                notepadWindow.getStatusBar().setStatus(
+                    String.format("%s %,d characters", statusText, document.getLength())
+                );
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+
+                finishLoading();
+
+                try {
+                    get();
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(
+                        notepadWindow,
+                        "The file cannot be opened",
+                        "Open error",
+                        JOptionPane.ERROR_MESSAGE
+                    );
+                    discardFailedDocument();
+                    return;
+                }
+
+                if (!positioned) {
+                    restorePosition(caret, viewPosition);
+                }
+
+                // Sync the model once, now that all text has arrived
+                syncModelText();
+                documentModel.setModified(modified);
+                updateWindowTitle();
+                onLoaded.accept(documentModel.getText());
+            }
+        };
+        loadWorker.execute();
     }
 
     /**
-     * Saves the current document state to the undo stack.
-     * Only saves if the current text differs from the last saved state.
+     * Cancels the background load, if one is running,
+     * and makes the editor editable again.
      */
-    private void saveState() {
-        String currentText = documentModel.getText();
-        // Only save if the content has actually changed since the last save
-        if (!currentText.equals(lastSavedState)) {
-            undoStack.push(lastSavedState);
-            lastSavedState = currentText;
+    private void cancelFileLoad() {
+        if (loadWorker != null && !loadWorker.isDone()) {
+            loadWorker.cancel(true);
+        }
+        loadWorker = null;
+
+        if (isLoading) {
+            finishLoading();
         }
     }
 
     /**
-     * Restores the previous document state from the undo stack.
-     * Updates the view which triggers model synchronization via DocumentListener.
+     * Drops the active document after its text failed to load.
+     * The editor holds only part of the text, so keeping the document would
+     * let a save overwrite its file with that part.
      */
-    private void undoState() {
-        if (!undoStack.isEmpty()) {
-            // Save current state to redo stack before undoing
-            redoStack.push(documentModel.getText());
-            // Retrieve and restore previous state
-            String previousState = undoStack.pop();
-            lastSavedState = previousState;
-            // Set flag to prevent DocumentListener from clearing redo stack during this update
-            isUndo = true;
-            notepadWindow
-                .getTextEditorPanel()
-                .getTextArea()
-                .setText(previousState);
+    private void discardFailedDocument() {
+        if (activeDocument != null) {
+            sessionDocuments.remove(activeDocument);
+            activeDocument = null;
         }
+
+        resetUndoHistory(null, "");
+        activateFallbackDocument();
     }
 
     /**
-     * Performs the redo operation.
-     * Moves the current state to the undo stack and restores the next state from the redo stack.
+     * Returns the editor to its normal state after a background load.
      */
-    private void redoState() {
-        if (!redoStack.isEmpty()) {
-            // Retrieve the state to redo
-            String previousState = redoStack.pop();
-            // Push current state back to undo stack
-            undoStack.push(documentModel.getText());
-            lastSavedState = previousState;
-            // Update view
-            notepadWindow
-                .getTextEditorPanel()
-                .getTextArea()
-                .setText(previousState);
+    private void finishLoading() {
+        TextEditorPanel editorPanel = notepadWindow.getTextEditorPanel();
+        for (JTextArea area : editorPanel.getTextAreas()) {
+            ((DefaultCaret) area.getCaret()).setUpdatePolicy(DefaultCaret.UPDATE_WHEN_ON_EDT);
         }
+        editorPanel.setEditable(true);
+        isLoading = false;
+        notepadWindow.getStatusBar().setStatus(governor.getStatusText());
     }
 
     /**
-     * Changes the font family of the text area, preserving the current size and style.
+     * Replaces the editor content without treating it as a user edit.
      *
-     * @param fontName the name of the font family to apply
+     * @param text          the new content
+     * @param modified      whether the content has unsaved changes
+     * @param caret         the caret position to restore
+     * @param viewPosition  the viewport position to restore
      */
-    private void changeFont(String fontName) {
-        JTextArea textArea = notepadWindow.getTextEditorPanel().getTextArea();
-        Font currentFont = textArea.getFont();
-        textArea.setFont(
-            new Font(fontName, currentFont.getStyle(), currentFont.getSize())
-        );
+    private void showText(String text, boolean modified, int caret, Point viewPosition) {
+        // Suppress change handling: the model is updated directly below
+        isLoading = true;
+        notepadWindow.getTextEditorPanel().getTextArea().setText(text);
+        isLoading = false;
+
+        textSyncTimer.stop();
+        documentModel.setText(text);
+        documentModel.setModified(modified);
+        restorePosition(caret, viewPosition);
+        updateWindowTitle();
     }
 
     /**
-     * Changes the font size of the text area, preserving the current family and style.
+     * Moves the caret and scrolls the editor to a saved position.
+     * Scrolling waits for the pending layout, so it applies to the new text.
      *
-     * @param size the new font size in points
+     * @param caret         the caret position, clamped to the text length
+     * @param viewPosition  the viewport position
      */
-    private void changeFontSize(int size) {
+    private void restorePosition(int caret, Point viewPosition) {
         JTextArea textArea = notepadWindow.getTextEditorPanel().getTextArea();
-        Font currentFont = textArea.getFont();
-        textArea.setFont(
-            new Font(currentFont.getName(), currentFont.getStyle(), size)
-        );
+        textArea.setCaretPosition(Math.min(caret, textArea.getDocument().getLength()));
+
+        SwingUtilities.invokeLater(() -> {
+            JViewport viewport = notepadWindow.getTextEditorPanel().getScrollPane().getViewport();
+            textArea.scrollRectToVisible(
+                new Rectangle(viewPosition, viewport.getExtentSize())
+            );
+        });
     }
 
     /**
-     * Updates the window title to reflect the current file name and modification status.
-     * Shows "Untitled" if no file is associated, and adds "*" prefix if modified.
+     * Starts a fresh undo history for newly shown content.
+     * The persisted history of the file is loaded on first undo.
+     *
+     * @param file  the file whose persisted history applies, or null
+     * @param text  the content now shown
      */
-    private void updateWindowTitle() {
-        File file = documentModel.getFile();
-        String title;
+    private void resetUndoHistory(File file, String text) {
+        undoStack = new Stack<>();
+        redoStack = new Stack<>();
+        lastSavedState = text;
+        pendingHistoryFile = file;
+        openedText = file == null ? null : text;
+    }
 
-        if (file == null) {
-            title = "Notepad - Untitled";
+    /**
+     * Opens a binary file in the hex view.
+     * The file is memory-mapped, so it is never decoded into the text area.
+     * The current text document stays in the session.
+     *
+     * @param file the binary file to open
+     */
+    private void openBinaryFile(File file) {
+        BinaryDocument document;
+        try {
+            document = new BinaryDocument(file);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(
+                notepadWindow,
+                "The file cannot be opened",
+                "Open error",
+                JOptionPane.ERROR_MESSAGE
+            );
+            return;
+        }
+
+        stashActiveDocument();
+        closeBinaryDocument();
+        binaryDocument = document;
+
+        // Empty the hidden text editor and its history
+        documentModel.setFile(file);
+        showText("", false, 0, new Point(0, 0));
+        resetUndoHistory(null, "");
+
+        // Show the file in the hex view
+        notepadWindow.getHexViewPanel().setDocument(document);
+        notepadWindow.showHexView();
+        setHexActionsEnabled(true);
+        updateWindowTitle();
+    }
+
+    /**
+     * Closes the binary file shown in the hex view, if any,
+     * and switches back to the text editor.
+     */
+    private void closeBinaryDocument() {
+        if (binaryDocument == null) {
+            return;
+        }
+
+        if (searchWorker != null) {
+            searchWorker.cancel(true);
+            searchWorker = null;
+        }
+
+        notepadWindow.getHexViewPanel().setDocument(null);
+        try {
+            binaryDocument.close();
+        } catch (IOException e) {
+            // Nothing useful to do: the file was only open for reading
+        }
+        binaryDocument = null;
+
+        notepadWindow.showTextEditor();
+        setHexActionsEnabled(false);
+    }
+
+    /**
+     * Finds the session document for a file.
+     *
+     * @param file  the file to look for
+     * @return      the document, or null if the file is not open
+     */
+    private SessionDocument findSessionDocument(File file) {
+        for (SessionDocument document : sessionDocuments) {
+            if (document.getFile() != null && document.getFile().getAbsoluteFile().equals(file.getAbsoluteFile())) {
+                return document;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a new document to the session and makes it the active one.
+     * The caller is responsible for showing its content.
+     *
+     * @param file  the file of the document, or null if untitled
+     */
+    private void startDocument(File file) {
+        activeDocument = new SessionDocument(nextDocumentId++, file);
+        sessionDocuments.add(activeDocument);
+        documentModel.setFile(file);
+        documentModel.setModified(false);
+        updateWindowTitle();
+    }
+
+    /**
+     * Moves the active document out of the editor and into the session.
+     * Its caret, scroll position, undo history, and any unsaved text are
+     * kept in its session entry. An empty, unmodified untitled document is
+     * dropped instead of kept.
+     */
+    private void stashActiveDocument() {
+        // A collaboration session belongs to the document shown in the editor
+        leaveSession();
+
+        if (activeDocument == null) {
+            return;
+        }
+
+        flushTextSync();
+        captureActiveDocument();
+
+        if (!isLoading && activeDocument.getFile() == null && !documentModel.isModified()) {
+            sessionDocuments.remove(activeDocument);
         } else {
-            String fileName = file.getName();
-            String modifiedMarker = documentModel.isModified() ? "*" : "";
-            title = "Notepad - " + modifiedMarker + fileName;
+            // Unmodified text is read again from its file on activation
+            boolean keepText = !isLoading && documentModel.isModified();
+            activeDocument.setUnsavedText(keepText ? documentModel.getText() : null);
+            // Until loading finishes, the stored history is still the document's own
+            if (!isLoading) {
+                activeDocument.setUndoHistory(undoStack, redoStack, lastSavedState);
+            }
         }
 
-        notepadWindow.setTitle(title);
+        cancelFileLoad();
+        resetUndoHistory(null, "");
+        activeDocument = null;
+    }
+
+    /**
+     * Copies the state of the active document from the editor into its session entry.
+     * Nothing is copied while its text is still loading.
+     */
+    private void captureActiveDocument() {
+        if (activeDocument == null || isLoading) {
+            return;
+        }
+
+        JTextArea textArea = notepadWindow.getTextEditorPanel().getTextArea();
+        Point view = notepadWindow.getTextEditorPanel().getScrollPane().getViewport().getViewPosition();
+
+        activeDocument.setFile(documentModel.getFile());
+        activeDocument.setCaretPosition(textArea.getCaretPosition());
+        activeDocument.setScrollPosition(view.x, view.y);
+        activeDocument.setModified(documentModel.isModified());
+    }
+
+    /**
+     * Shows a session document in the editor.
+     * Unsaved text held in memory is shown at once; unsaved text stored in the
+     * session directory, or the content of the document's file, is streamed in
+     * the background.
+     *
+     * @param target the document to activate
+     */
+    private void activateDocument(SessionDocument target) {
+        if (target == activeDocument) {
+            return;
+        }
+
+        stashActiveDocument();
+        closeBinaryDocument();
+
+        activeDocument = target;
+        documentModel.setFile(target.getFile());
+        Point viewPosition = new Point(target.getScrollX(), target.getScrollY());
+        Stack<String> savedUndo = target.getUndoStack();
+        Stack<String> savedRedo = target.getRedoStack();
+        String savedLastState = target.getLastSavedState();
+
+        String unsavedText = target.getUnsavedText();
+        File file = target.getFile();
+
+        if (unsavedText != null) {
+            // The editor now owns the text
+            target.setUnsavedText(null);
+            showText(unsavedText, true, target.getCaretPosition(), viewPosition);
+            restoreUndoHistory(savedUndo, savedRedo, savedLastState);
+        } else if (target.isModified() && target.isBufferOnDisk()) {
+            documentModel.setModified(true);
+            loadInBackground(
+                consumer -> SessionService.streamBuffer(target.getId(), consumer),
+                "Restoring unsaved changes...",
+                target.getCaretPosition(),
+                viewPosition,
+                text -> restoreUndoHistory(savedUndo, savedRedo, text)
+            );
+        } else if (file != null) {
+            // A modified document stays marked as such even if its changes were lost
+            documentModel.setModified(target.isModified());
+            loadInBackground(
+                consumer -> FileService.streamFile(file, consumer),
+                "Loading " + file.getName() + "...",
+                target.getCaretPosition(),
+                viewPosition,
+                text -> {
+                    resetUndoHistory(file, text);
+                    if (!savedUndo.isEmpty() || !savedRedo.isEmpty()) {
+                        restoreUndoHistory(savedUndo, savedRedo, text);
+                    }
+                }
+            );
+        } else {
+            showText("", target.isModified(), 0, viewPosition);
+            resetUndoHistory(null, "");
+        }
+
+        updateWindowTitle();
+
+        // Unsaved changes that never reached the session directory cannot be restored
+        if (unsavedText == null && target.isModified() && !target.isBufferOnDisk()) {
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(
+                notepadWindow,
+                "The unsaved changes to '" + target.getDisplayName() + "' could not be restored",
+                "Restore error",
+                JOptionPane.WARNING_MESSAGE
+            ));
+        }
+    }
+
+    /**
+     * Puts a document's stored undo history back in use.
+     *
+     * @param savedUndo       the stored undo states
+     * @param savedRedo       the stored redo states
+     * @param lastState       the last state recorded for undo
+     */
+    private void restoreUndoHistory(Stack<String> savedUndo, Stack<String> savedRedo, String lastState) {
+        undoStack = savedUndo;
+        redoStack = savedRedo;
+        lastSavedState = lastState;
+        pendingHistoryFile = null;
+        openedText = null;
+    }
+
+    /**
+     * Closes the active document, asking first if it has unsaved changes.
+     * Closing the hex view returns to the text documents of the session.
+     */
+    private void closeDocument() {
+        if (binaryDocument != null) {
+            closeBinaryDocument();
+            activateFallbackDocument();
+            return;
+        }
+
+        if (activeDocument == null) {
+            return;
+        }
+
+        if (documentModel.isModified() && !isLoading) {
+            int result = JOptionPane.showConfirmDialog(
+                notepadWindow,
+                "Discard the unsaved changes to '" + activeDocument.getDisplayName() + "'?",
+                "Close",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.WARNING_MESSAGE
+            );
+
+            // User chose to keep the document open
+            if (result != JOptionPane.YES_OPTION) {
+                return;
+            }
+        }
+
+        cancelFileLoad();
+        sessionDocuments.remove(activeDocument);
+        activeDocument = null;
+        resetUndoHistory(null, "");
+        activateFallbackDocument();
+    }
+
+    /**
+     * Activates the most recently added session document,
+     * or a new untitled document if the session is empty.
+     */
+    private void activateFallbackDocument() {
+        if (sessionDocuments.isEmpty()) {
+            SessionDocument untitled = new SessionDocument(nextDocumentId++, null);
+            sessionDocuments.add(untitled);
+        }
+        activateDocument(sessionDocuments.get(sessionDocuments.size() - 1));
+    }
+
+    /**
+     * Rebuilds the Documents menu from the session documents.
+     * Called each time the menu is opened, so names and markers are current.
+     */
+    private void rebuildDocumentsMenu() {
+        JMenu documentsMenu = notepadWindow.getAppMenuBar().getDocumentsMenu();
+        documentsMenu.removeAll();
+
+        for (SessionDocument document : sessionDocuments) {
+            boolean modified = document == activeDocument
+                ? documentModel.isModified()
+                : document.isModified();
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(
+                (modified ? "*" : "") + document.getDisplayName(),
+                document == activeDocument
+            );
+            item.addActionListener(e -> activateDocument(document));
+            documentsMenu.add(item);
+        }
+    }
+
+    /**
+     * Restores the previous session, or starts with an untitled document.
+     * Only the session index is read here; the active document's text is
+     * streamed in the background and the other documents are loaded when
+     * they are activated.
+     */
+    private void restoreSession() {
+        SessionState state = SessionService.loadSession();
+
+        if (state == null || state.getDocuments().isEmpty()) {
+            activateFallbackDocument();
+            return;
+        }
+
+        // Restore the font chosen from the Format menu
+        TextEditorPanel editorPanel = notepadWindow.getTextEditorPanel();
+        editorPanel.setEditorFont(
+            FontCache.getFont(state.getFontName(), editorPanel.getTextArea().getFont().getStyle(), state.getFontSize())
+        );
+
+        sessionDocuments.addAll(state.getDocuments());
+        for (SessionDocument document : sessionDocuments) {
+            nextDocumentId = Math.max(nextDocumentId, document.getId() + 1);
+        }
+
+        int activeIndex = state.getActiveIndex();
+        activateDocument(sessionDocuments.get(activeIndex >= 0 ? activeIndex : 0));
+    }
+
+    /**
+     * Saves the session in the background.
+     * Only unsaved texts that changed since they were last written are passed
+     * on; strings are immutable, so an identity check is enough to tell.
+     * Each write copies and compresses the whole text, so the buffer of a
+     * large document being edited is rewritten at most every
+     * LARGE_BUFFER_SAVE_INTERVAL.
+     *
+     * @param closing  true for the final save on exit, which always writes
+     *                 the edited buffer, even while background work is paused
+     * @return         a future that completes once the session is written,
+     *                 or completes exceptionally if writing fails
+     */
+    private CompletableFuture<Void> saveSession(boolean closing) {
+        captureActiveDocument();
+
+        Map<Long, String> changedBuffers = new HashMap<>();
+        for (SessionDocument document : sessionDocuments) {
+            // Documents without unsaved changes have no buffer
+            if (!document.isModified()) {
+                document.setBufferOnDisk(false);
+                writtenBuffers.remove(document.getId());
+                continue;
+            }
+
+            String text;
+            if (document == activeDocument) {
+                // Rewriting the buffer being edited is skipped while background work is paused
+                boolean paused = !closing && (
+                    governor.isDegraded(PerformanceGovernor.Feature.BACKGROUND_TASKS) ||
+                    (governor.isDocumentLarge() &&
+                        System.currentTimeMillis() - activeBufferWrittenAt < LARGE_BUFFER_SAVE_INTERVAL)
+                );
+                if (isLoading || paused) {
+                    text = null;
+                } else {
+                    flushTextSync();
+                    text = documentModel.getText();
+                }
+            } else {
+                text = document.getUnsavedText();
+            }
+
+            if (text != null && writtenBuffers.get(document.getId()) != text) {
+                changedBuffers.put(document.getId(), text);
+            }
+        }
+
+        Font font = notepadWindow.getTextEditorPanel().getTextArea().getFont();
+        SessionState state = new SessionState(
+            new ArrayList<>(sessionDocuments),
+            sessionDocuments.indexOf(activeDocument),
+            font.getName(),
+            font.getSize()
+        );
+        CompletableFuture<Void> result = SessionService.saveSession(state, changedBuffers);
+        result.whenComplete((ignored, error) -> SwingUtilities.invokeLater(
+            () -> buffersWritten(changedBuffers, error == null)
+        ));
+
+        // Remember what was written, and forget documents that were closed
+        for (SessionDocument document : sessionDocuments) {
+            String text = changedBuffers.get(document.getId());
+            if (text != null) {
+                writtenBuffers.put(document.getId(), text);
+                document.setBufferOnDisk(true);
+                if (document == activeDocument) {
+                    activeBufferWrittenAt = System.currentTimeMillis();
+                }
+            }
+        }
+        writtenBuffers.keySet().removeIf(id -> sessionDocuments.stream().noneMatch(d -> d.getId() == id));
+
+        return result;
+    }
+
+    /**
+     * Finishes a session save once its buffers are on disk.
+     * Inactive documents then release their unsaved text, which is read back
+     * from the buffer when they are activated. If writing failed, the texts
+     * are kept and written again by the next save.
+     *
+     * @param buffers  the unsaved texts the save wrote, by document id
+     * @param written  true if the save succeeded, false otherwise
+     */
+    private void buffersWritten(Map<Long, String> buffers, boolean written) {
+        for (SessionDocument document : sessionDocuments) {
+            String text = buffers.get(document.getId());
+            if (text == null) {
+                continue;
+            }
+
+            if (!written) {
+                writtenBuffers.remove(document.getId(), text);
+            } else if (document != activeDocument && document.getUnsavedText() == text) {
+                document.setUnsavedText(null);
+            }
+        }
+    }
+
+    /**
+     * Asks for an offset and scrolls the hex view to it.
+     * Accepts decimal values and hexadecimal values with a 0x prefix.
+     */
+    private void goToOffset() {
+        if (binaryDocument == null) {
+            return;
+        }
+
+        String input = JOptionPane.showInputDialog(
+            notepadWindow,
+            "Offset (decimal, or hexadecimal with 0x prefix):",
+            "Go to offset",
+            JOptionPane.QUESTION_MESSAGE
+        );
+
+        // User cancelled the dialog
+        if (input == null || input.isBlank()) {
+            return;
+        }
+
+        try {
+            long offset = Long.decode(input.trim());
+            if (offset < 0 || offset >= binaryDocument.length()) {
+                throw new NumberFormatException();
+            }
+            notepadWindow.getHexViewPanel().highlight(offset, 1);
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(
+                notepadWindow,
+                "The offset is not valid for this file",
+                "Go to offset",
+                JOptionPane.ERROR_MESSAGE
+            );
+        }
+    }
+
+    /**
+     * Asks for a byte pattern and searches for its next occurrence.
+     * The search runs in the background, starting after the current match
+     * or at the top of the view when nothing is highlighted.
+     */
+    private void findBytes() {
+        if (binaryDocument == null) {
+            return;
+        }
+
+        String input = JOptionPane.showInputDialog(
+            notepadWindow,
+            "Bytes to find (hex such as 4D 5A 90, or plain text):",
+            "Find bytes",
+            JOptionPane.QUESTION_MESSAGE
+        );
+
+        // User cancelled the dialog
+        if (input == null || input.isEmpty()) {
+            return;
+        }
+
+        byte[] pattern = parseBytePattern(input);
+        HexViewPanel hexView = notepadWindow.getHexViewPanel();
+        long highlighted = hexView.getHighlightOffset();
+        long from = highlighted >= 0 ? highlighted + 1 : hexView.getTopOffset();
+        BinaryDocument document = binaryDocument;
+
+        if (searchWorker != null) {
+            searchWorker.cancel(true);
+        }
+
+        searchWorker = new SwingWorker<>() {
+            @Override
+            protected Long doInBackground() {
+                return document.indexOf(pattern, from);
+            }
+
+            @Override
+            protected void done() {
+                // Ignore results from a cancelled search or a closed file
+                if (isCancelled() || document != binaryDocument) {
+                    return;
+                }
+
+                try {
+                    long offset = get();
+                    if (offset >= 0) {
+                        hexView.highlight(offset, pattern.length);
+                    } else {
+                        JOptionPane.showMessageDialog(
+                            notepadWindow,
+                            "The byte pattern was not found",
+                            "Find bytes",
+                            JOptionPane.INFORMATION_MESSAGE
+                        );
+                    }
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(
+                        notepadWindow,
+                        "The search failed",
+                        "Find bytes",
+                        JOptionPane.ERROR_MESSAGE
+                    );
+                }
+            }
+        };
+        searchWorker.execute();
+    }
+
+    /**
+     * Converts user input into the bytes to search for.
+     * Input made only of hex digit pairs (spaces allowed) is read as hex;
+     * anything else is searched for as UTF-8 text.
+     *
+     * @param input  the text entered by the user
+     * @return       the byte pattern
+     */
+    private byte[] parseBytePattern(String input) {
+        String hex = input.replace(" ", "");
+
+        if (!hex.isEmpty() && hex.length() % 2 == 0 && hex.matches("[0-9A-Fa-f]+")) {
+            byte[] bytes = new byte[hex.length() / 2];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+            }
+            return bytes;
+        }
+
+        return input.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Enables or disables the Edit menu items that only apply to the hex view.
+     *
+     * @param enabled true to enable the items, false to disable them
+     */
+    private void setHexActionsEnabled(boolean enabled) {
+        JMenu editMenu = notepadWindow.getAppMenuBar().getEditMenu();
+        editMenu.getItem(2).setEnabled(enabled);
+        editMenu.getItem(3).setEnabled(enabled);
+
+        // The hex view has no second view to split into
+        notepadWindow.getAppMenuBar().getViewMenu().getItem(0).setEnabled(!enabled);
+    }
+
+    /**
+     * Tells the user that the document cannot be saved until it has finished loading.
+     */
+    private void showLoadingMessage() {
+        JOptionPane.showMessageDialog(
+            notepadWindow,
+            "The file is still loading",
+            "Save",
+            JOptionPane.INFORMATION_MESSAGE
+        );
+    }
+
+    /**
+     * Tells the user that binary files cannot be saved from the hex view.
+     */
+    private void showReadOnlyMessage() {
+        JOptionPane.showMessageDialog(
+            notepadWindow,
+            "Binary files are opened read-only",
+            "Save",
+            JOptionPane.INFORMATION_MESSAGE
+        );
+    }
+
+    /**
+     * Handles text changes in the text area.
+     * Syncs the model with the view and updates the window title.
+     * While sync is deferred, the model is only synced once typing pauses.
+     * Nothing is done while a file is being streamed in.
+     */
+    private void onTextChanged() {
+        // Text streamed in by a background load is synced once it completes
+        if (isLoading) {
+            return;
+        }
+
+        if (deferTextSync) {
+            textSyncTimer.restart();
+        } else {
+            syncModelText();
+        }
+        documentModel.setModified(true);
+        updateWindowTitle();
+    }
+
+    /**
+     * Copies the text area content into the model.
+     */
+    private void syncModelText() {
+        textSyncTimer.stop();
+        JTextArea textArea = notepadWindow.getTextEditorPanel().getTextArea();
+        documentModel.setText(textArea.getText());
+    }
+
+    /**
+     * Syncs the model now if a deferred sync is still pending.
+     * Must be called before reading the text from the model.
+     */
+    private void flushTextSync() {
+        if (textSyncTimer.isRunning()) {
+            syncModelText();
+        }
+    }
+
+    /**
+     * Applies a feature change decided by the performance governor
+     * and refreshes the status bar.
+     *
+     * @param feature   the feature that changed
+     * @param degraded  true if the feature is now degraded, false if restored
+     * @return          a short description of the effect, for the log
+     */
+    private String applyGovernorChange(PerformanceGovernor.Feature feature, boolean degraded) {
+        String effect;
+
+        switch (feature) {
+            case SOFT_WRAP:
+                notepadWindow.getTextEditorPanel().setSoftWrap(!degraded);
+                effect = degraded ? "long lines are no longer wrapped" : "long lines wrap again";
+                break;
+            case UNDO_DEPTH:
+                undoLimit = degraded ? governor.getDegradedUndoDepth() : Integer.MAX_VALUE;
+                int dropped = trimUndoHistory();
+                effect = degraded
+                    ? "undo depth limited to " + undoLimit + ", " + dropped + " states released"
+                    : "undo depth unlimited";
+                break;
+            case LIVE_TEXT_SYNC:
+                deferTextSync = degraded;
+                if (!degraded) {
+                    flushTextSync();
+                }
+                effect = degraded
+                    ? "model synced only after typing pauses"
+                    : "model synced on every edit";
+                break;
+            case BACKGROUND_TASKS:
+            default:
+                effect = degraded
+                    ? "undo history and the edited session buffer are not persisted"
+                    : "undo history and the edited session buffer are persisted";
+                break;
+        }
+
+        notepadWindow.getStatusBar().setStatus(governor.getStatusText());
+        return effect;
+    }
+
+    /**
+     * Drops the oldest undo and redo states beyond the current undo limit.
+     *
+     * @return the number of states dropped
+     */
+    private int trimUndoHistory() {
+        int dropped = 0;
+        while (undoStack.size() > undoLimit) {
+            undoStack.remove(0);
+            dropped++;
+        }
+        while (redoStack.size() > undoLimit) {
+            redoStack.remove(0);
+            dropped++;
+        }
+        return dropped;
+    }
+
+    /**
+     * Saves the current document state to the undo stack.
+     * Only saves if the current text differs from the last saved state.
+     */
+    private void saveState() {
+        flushTextSync();
+        String currentText = documentModel.getText();
+        // Only save if the content has actually changed since the last save
+        if (!currentText.equals(lastSavedState)) {
+            undoStack.push(lastSavedState);
+            lastSavedState = currentText;
+            trimUndoHistory();
+        }
+    }
+
+    /**
+     * Restores the previous document state from the undo stack.
+     * Updates the view which triggers model synchronization via DocumentListener.
+     * Not available during a collaboration session.
+     */
+    private void undoState() {
+        if (collaboration != null) {
+            return;
+        }
+
+        loadPendingUndoHistory();
+
+        if (binaryDocument == null && !undoStack.isEmpty()) {
+            // Save current state to redo stack before undoing
+            flushTextSync();
+            redoStack.push(documentModel.getText());
+            // Retrieve and restore previous state
+            String previousState = undoStack.pop();
+            lastSavedState = previousState;
+            // Set flag to prevent DocumentListener from clearing redo stack during this update
+            isUndo = true;
+            notepadWindow
+                .getTextEditorPanel()
+                .getTextArea()
+                .setText(previousState);
+        }
+    }
+
+    /**
+     * Loads the persisted undo history of the opened file, if not done yet.
+     * Loading is deferred until it is needed, so opening a file with a long
+     * history costs nothing extra. The loaded states go below the states
+     * recorded in this session, since they all precede the opened content.
+     */
+    private void loadPendingUndoHistory() {
+        if (pendingHistoryFile == null) {
+            return;
+        }
+
+        // States beyond the undo limit would be trimmed right away, so they are not decoded
+        List<String> states = UndoHistoryService.loadHistory(
+            pendingHistoryFile,
+            openedText,
+            Math.max(undoLimit - undoStack.size(), 0)
+        );
+        undoStack.addAll(0, states);
+        trimUndoHistory();
+
+        pendingHistoryFile = null;
+        openedText = null;
+    }
+
+    /**
+     * Persists the undo history of a file that was just saved.
+     * Any history still pending from disk is merged first so it is not lost.
+     *
+     * @param file the file the document was saved to
+     */
+    private void persistUndoHistory(File file) {
+        // Skipped while the governor has paused background work
+        if (governor.isDegraded(PerformanceGovernor.Feature.BACKGROUND_TASKS)) {
+            return;
+        }
+
+        loadPendingUndoHistory();
+
+        List<String> states = new ArrayList<>(undoStack);
+        // The last recorded state precedes the saved text unless they match
+        if (!lastSavedState.equals(documentModel.getText())) {
+            states.add(lastSavedState);
+        }
+
+        UndoHistoryService.saveHistory(file, states, documentModel.getText());
+    }
+
+    /**
+     * Performs the redo operation.
+     * Moves the current state to the undo stack and restores the next state from the redo stack.
+     * Not available during a collaboration session.
+     */
+    private void redoState() {
+        if (collaboration != null) {
+            return;
+        }
+
+        if (binaryDocument == null && !redoStack.isEmpty()) {
+            // Retrieve the state to redo
+            String previousState = redoStack.pop();
+            // Push current state back to undo stack
+            flushTextSync();
+            undoStack.push(documentModel.getText());
+            lastSavedState = previousState;
+            // Update view
+            notepadWindow
+                .getTextEditorPanel()
+                .getTextArea()
+                .setText(previousState);
+        }
+    }
+
+    /**
+     * Changes the font family of the text areas, preserving the current size and style.
+     *
+     * @param fontName the name of the font family to apply
+     */
+    private void changeFont(String fontName) {
+        TextEditorPanel editorPanel = notepadWindow.getTextEditorPanel();
+        Font currentFont = editorPanel.getTextArea().getFont();
+        editorPanel.setEditorFont(
+            FontCache.getFont(fontName, currentFont.getStyle(), currentFont.getSize())
+        );
+    }
+
+    /**
+     * Changes the font size of the text areas, preserving the current family and style.
+     *
+     * @param size the new font size in points
+     */
+    private void changeFontSize(int size) {
+        TextEditorPanel editorPanel = notepadWindow.getTextEditorPanel();
+        Font currentFont = editorPanel.getTextArea().getFont();
+        editorPanel.setEditorFont(
+            FontCache.getFont(currentFont.getName(), currentFont.getStyle(), size)
+        );
+    }
+
+    /**
+     * Splits the editor into two views of the current document, or joins them again.
+     * The second view shares the editor's Document, so no text is copied.
+     */
+    private void toggleSplitView() {
+        TextEditorPanel editorPanel = notepadWindow.getTextEditorPanel();
+        boolean split = !editorPanel.isSplit();
+        editorPanel.setSplit(split);
+
+        JTextArea secondaryTextArea = editorPanel.getSecondaryTextArea();
+        if (secondaryTextArea != null) {
+            // Edits typed in the second view are recorded for undo as well
+            secondaryTextArea.addKeyListener(undoKeyListener);
+            if (isLoading) {
+                ((DefaultCaret) secondaryTextArea.getCaret()).setUpdatePolicy(DefaultCaret.NEVER_UPDATE);
+            }
+        }
+
+        ((JCheckBoxMenuItem) notepadWindow.getAppMenuBar().getViewMenu().getItem(0)).setSelected(split);
+    }
+
+    /**
+     * Shares the active document by hosting a collaboration session.
+     * Starts a relay server on a chosen port and joins it in the background.
+     */
+    private void hostSession() {
+        if (!canCollaborate()) {
+            return;
+        }
+
+        // Other computers can only connect if the user explicitly allows it
+        JTextField portField = new JTextField(String.valueOf(CollaborationServer.DEFAULT_PORT));
+        JCheckBox networkBox = new JCheckBox("Allow connections from other computers");
+        int result = JOptionPane.showConfirmDialog(
+            notepadWindow,
+            new Object[] { "Port:", portField, networkBox },
+            "Host session",
+            JOptionPane.OK_CANCEL_OPTION,
+            JOptionPane.PLAIN_MESSAGE
+        );
+
+        // User cancelled the dialog
+        String input = portField.getText();
+        if (result != JOptionPane.OK_OPTION || input.isBlank()) {
+            return;
+        }
+
+        int port;
+        try {
+            port = Integer.parseInt(input.trim());
+            if (port < 1 || port > 65535) {
+                throw new NumberFormatException();
+            }
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(
+                notepadWindow,
+                "The port is not valid",
+                "Host session",
+                JOptionPane.ERROR_MESSAGE
+            );
+            return;
+        }
+
+        CollaborationServer server;
+        try {
+            // The server starts from exactly the text in the editor
+            server = new CollaborationServer(
+                port,
+                notepadWindow.getTextEditorPanel().getTextArea().getText(),
+                networkBox.isSelected()
+            );
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(
+                notepadWindow,
+                "The session cannot be hosted on port " + port,
+                "Host session",
+                JOptionPane.ERROR_MESSAGE
+            );
+            return;
+        }
+
+        int hostPort = port;
+        connectInBackground(
+            "localhost",
+            port,
+            server,
+            client -> {
+                startCollaboration(client, server);
+                notepadWindow.getStatusBar().setStatus("Hosting session on port " + hostPort);
+            },
+            () -> JOptionPane.showMessageDialog(
+                notepadWindow,
+                "The session cannot be hosted on port " + hostPort,
+                "Host session",
+                JOptionPane.ERROR_MESSAGE
+            )
+        );
+    }
+
+    /**
+     * Joins a collaboration session hosted by another editor.
+     * Connects in the background; the shared text is then opened
+     * as a new untitled document.
+     */
+    private void joinSession() {
+        if (!canCollaborate()) {
+            return;
+        }
+
+        String input = JOptionPane.showInputDialog(
+            notepadWindow,
+            "Host and port:",
+            "localhost:" + CollaborationServer.DEFAULT_PORT
+        );
+
+        // User cancelled the dialog
+        if (input == null || input.isBlank()) {
+            return;
+        }
+
+        String address = input.trim();
+        int separator = address.lastIndexOf(':');
+        String host = separator < 0 ? address : address.substring(0, separator);
+        int port;
+        try {
+            port = separator < 0
+                ? CollaborationServer.DEFAULT_PORT
+                : Integer.parseInt(address.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            port = -1;
+        }
+
+        Runnable showError = () -> JOptionPane.showMessageDialog(
+            notepadWindow,
+            "Cannot join the session at " + address,
+            "Join session",
+            JOptionPane.ERROR_MESSAGE
+        );
+        if (host.isEmpty() || port < 1 || port > 65535) {
+            showError.run();
+            return;
+        }
+
+        int joinPort = port;
+        connectInBackground(
+            host,
+            port,
+            null,
+            client -> {
+                // Show the shared text as a new document, keeping the current one in the session
+                stashActiveDocument();
+                closeBinaryDocument();
+                startDocument(null);
+                showText(client.getText(), true, 0, new Point(0, 0));
+                resetUndoHistory(null, client.getText());
+
+                startCollaboration(client, null);
+                notepadWindow.getStatusBar().setStatus("Joined session at " + host + ":" + joinPort);
+            },
+            showError
+        );
+    }
+
+    /**
+     * Connects to a collaboration server on a background thread, since
+     * connecting and receiving the document may take seconds.
+     * While a hosted session is set up, the editor is read-only so its text
+     * stays the same as the server's copy. Leaving the session before the
+     * connection completes abandons it.
+     *
+     * @param host         the server host name
+     * @param port         the server port
+     * @param server       the server hosted here, closed if connecting fails; null when joining
+     * @param onConnected  receives the connected client on the UI thread
+     * @param onFailed     tells the user that connecting failed, on the UI thread
+     */
+    private void connectInBackground(
+        String host,
+        int port,
+        CollaborationServer server,
+        Consumer<CollaborationClient> onConnected,
+        Runnable onFailed
+    ) {
+        if (server != null) {
+            notepadWindow.getTextEditorPanel().setEditable(false);
+        }
+        setCollaborationActionsEnabled(true);
+        notepadWindow.getStatusBar().setStatus("Connecting to " + host + ":" + port + "...");
+
+        connectWorker = new SwingWorker<>() {
+            @Override
+            protected CollaborationClient doInBackground() throws IOException {
+                return new CollaborationClient(host, port);
+            }
+
+            @Override
+            protected void done() {
+                CollaborationClient client;
+                try {
+                    client = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    client = null;
+                }
+
+                // Connecting was abandoned by leaving the session or switching documents
+                if (connectWorker != this) {
+                    if (client != null) {
+                        client.close();
+                    }
+                    if (server != null) {
+                        server.close();
+                    }
+                    return;
+                }
+
+                connectWorker = null;
+                notepadWindow.getTextEditorPanel().setEditable(true);
+                notepadWindow.getStatusBar().setStatus(governor.getStatusText());
+
+                if (client == null) {
+                    if (server != null) {
+                        server.close();
+                    }
+                    setCollaborationActionsEnabled(false);
+                    onFailed.run();
+                    return;
+                }
+                onConnected.accept(client);
+            }
+        };
+        connectWorker.execute();
+    }
+
+    /**
+     * Leaves the current collaboration session, stopping it if hosted here.
+     * The document keeps its text.
+     */
+    private void leaveSession() {
+        // A connection still being set up is closed once it completes
+        if (connectWorker != null) {
+            connectWorker = null;
+            notepadWindow.getTextEditorPanel().setEditable(true);
+            setCollaborationActionsEnabled(false);
+            notepadWindow.getStatusBar().setStatus(governor.getStatusText());
+            return;
+        }
+
+        if (collaboration == null) {
+            return;
+        }
+
+        collaboration.close();
+        collaboration = null;
+        setCollaborationActionsEnabled(false);
+        notepadWindow.getStatusBar().setStatus(governor.getStatusText());
+    }
+
+    /**
+     * Starts syncing the editor document through a connected client.
+     *
+     * @param client  the connection to the server
+     * @param server  the server hosted here, or null when joining
+     */
+    private void startCollaboration(CollaborationClient client, CollaborationServer server) {
+        collaboration = new CollaborationSession(
+            notepadWindow.getTextEditorPanel().getTextArea().getDocument(),
+            client,
+            server,
+            e -> {
+                collaboration = null;
+                setCollaborationActionsEnabled(false);
+                notepadWindow.getStatusBar().setStatus(governor.getStatusText());
+                JOptionPane.showMessageDialog(
+                    notepadWindow,
+                    "The collaboration session has ended: " + e.getMessage(),
+                    "Collaborate",
+                    JOptionPane.WARNING_MESSAGE
+                );
+            },
+            this::onTextChanged
+        );
+        setCollaborationActionsEnabled(true);
+    }
+
+    /**
+     * Checks whether the collaboration session is applying a batch of remote edits.
+     *
+     * @return true while remote edits are applied, false otherwise
+     */
+    private boolean isApplyingRemote() {
+        return collaboration != null && collaboration.isApplyingRemote();
+    }
+
+    /**
+     * Checks whether a collaboration session can be started now,
+     * telling the user why not otherwise.
+     *
+     * @return true if the active document can be shared, false otherwise
+     */
+    private boolean canCollaborate() {
+        if (binaryDocument != null) {
+            JOptionPane.showMessageDialog(
+                notepadWindow,
+                "Binary files cannot be edited together",
+                "Collaborate",
+                JOptionPane.INFORMATION_MESSAGE
+            );
+            return false;
+        }
+        if (isLoading) {
+            JOptionPane.showMessageDialog(
+                notepadWindow,
+                "The file is still loading",
+                "Collaborate",
+                JOptionPane.INFORMATION_MESSAGE
+            );
+            return false;
+        }
+        return collaboration == null && connectWorker == null;
+    }
+
+    /**
+     * Enables the Collaborate menu items that apply to the current state.
+     *
+     * @param active  true while a collaboration session is running
+     */
+    private void setCollaborationActionsEnabled(boolean active) {
+        JMenu collaborateMenu = notepadWindow.getAppMenuBar().getCollaborateMenu();
+        collaborateMenu.getItem(0).setEnabled(!active);
+        collaborateMenu.getItem(1).setEnabled(!active);
+        collaborateMenu.getItem(2).setEnabled(active);
+
+        // Undo and redo restore whole snapshots, which would wipe out remote edits
+        JMenu editMenu = notepadWindow.getAppMenuBar().getEditMenu();
+        editMenu.getItem(0).setEnabled(!active);
+        editMenu.getItem(1).setEnabled(!active);
+    }
+
+    /**
+     * Updates the window title to reflect the current file name and modification status.
+     * Shows "Untitled" if no file is associated, and adds "*" prefix if modified.
+     * Binary files shown in the hex view are marked as read-only.
+     */
+    private void updateWindowTitle() {
+        File file = documentModel.getFile();
+        String title;
+
+        if (file == null) {
+            title = "Notepad - Untitled";
+        } else {
+            String fileName = file.getName();
+            String modifiedMarker = documentModel.isModified() ? "*" : "";
+            String binaryMarker = binaryDocument != null ? " (read-only)" : "";
+            title = "Notepad - " + modifiedMarker + fileName + binaryMarker;
+        }
+
+        notepadWindow.setTitle(title);
+    }
+
+    /**
+     * Source of text that is streamed into the editor in chunks.
+     */
+    private interface TextSource {
+        /**
+         * Produces the text, handing each chunk to the consumer in order.
+         *
+         * @param consumer  receives the chunks
+         * @throws IOException if reading the text fails
+         */
+        void stream(Consumer<String> consumer) throws IOException;
     }
 }
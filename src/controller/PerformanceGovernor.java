@@ -0,0 +1,423 @@
+package controller;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Watches document size, heap pressure, and UI thread latency, and switches
+ * editor features into degraded-but-fast modes while any of them is high.
+ * Each feature is restored once the pressure that degraded it has stayed
+ * low for several samples in a row.
+ *
+ * Heap pressure is measured after garbage collection, so garbage that is
+ * about to be collected does not cost undo states, which cannot be brought
+ * back. A feature degraded by UI latency may itself have caused that
+ * latency, so the drop in latency after degrading it proves nothing: it is
+ * only restored once the document has shrunk, or after a cooldown that
+ * doubles each time the feature causes latency again right after a restore.
+ *
+ * Thresholds are read from ~/.notepad/governor.properties and can be
+ * overridden with system properties of the same name.
+ */
+public class PerformanceGovernor {
+
+    private static final Logger LOGGER = Logger.getLogger(PerformanceGovernor.class.getName());
+
+    /** Properties file holding user-defined thresholds. */
+    private static final File SETTINGS_FILE = new File(
+        System.getProperty("user.home"),
+        ".notepad" + File.separator + "governor.properties"
+    );
+
+    /** A signal must fall below this share of its threshold before it clears. */
+    private static final double RECOVERY_RATIO = 0.8;
+
+    /** Largest multiple of the base cooldown a latency-degraded feature waits. */
+    private static final int MAX_COOLDOWN_FACTOR = 16;
+
+    /**
+     * Editor features the governor can degrade.
+     */
+    public enum Feature {
+        /** Soft wrap, which lays out every line again on each resize or font change. */
+        SOFT_WRAP("soft wrap off"),
+        /** Undo depth, where each level holds a full copy of the document. */
+        UNDO_DEPTH("undo depth reduced"),
+        /** Copying the whole text into the model after every edit. */
+        LIVE_TEXT_SYNC("model sync deferred"),
+        /** Background work such as persisting undo history. */
+        BACKGROUND_TASKS("background tasks paused");
+
+        private final String description;
+
+        Feature(String description) {
+            this.description = description;
+        }
+
+        /**
+         * Gets a short description of the degraded mode, for the status bar.
+         *
+         * @return the description
+         */
+        public String getDescription() {
+            return this.description;
+        }
+    }
+
+    /**
+     * Receives feature changes decided by the governor.
+     */
+    public interface Listener {
+        /**
+         * Applies a feature change. Called on the event dispatch thread.
+         *
+         * @param feature   the feature that changed
+         * @param degraded  true if the feature is now degraded, false if restored
+         * @return          a short description of the effect, for the log
+         */
+        String featureChanged(Feature feature, boolean degraded);
+    }
+
+    private final IntSupplier documentLength;
+    private final Listener listener;
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    private final Map<Feature, FeatureState> states = new EnumMap<>(Feature.class);
+
+    /** Thresholds, see loadSettings() for their property names */
+    private long largeDocumentChars;
+    private double heapPressure;
+    private long edtLatencyMillis;
+    private int degradedUndoDepth;
+    private int pollIntervalMillis;
+    private int recoverySamples;
+    private long latencyCooldownMillis;
+
+    /**
+     * Mode of one feature, and what is needed to restore it.
+     */
+    private static class FeatureState {
+
+        private boolean degraded = false;
+        /** Consecutive samples in which the feature could have been restored */
+        private int clearSamples = 0;
+        /** Whether UI latency was among the causes when the feature was degraded */
+        private boolean latencyTriggered = false;
+        /** Document length when the feature was degraded by latency */
+        private int degradedLength = 0;
+        /** Times of the last switch in each direction, in milliseconds */
+        private long degradedAt = 0;
+        private long restoredAt = 0;
+        /** Time a latency-degraded feature waits before it is restored */
+        private long cooldownMillis;
+    }
+
+    /** Current state of each pressure signal, with hysteresis applied */
+    private boolean documentLarge = false;
+    private boolean heapHigh = false;
+    private boolean edtSlow = false;
+
+    /** Worst UI thread latency seen since the last evaluation, in milliseconds */
+    private volatile long worstLatencyMillis = 0;
+
+    private Timer evaluationTimer;
+    private ScheduledExecutorService latencyProbe;
+
+    /**
+     * Constructor that loads thresholds and prepares the governor.
+     * Call start() to begin monitoring.
+     *
+     * @param documentLength  supplies the current document length in characters
+     * @param listener        applies feature changes
+     */
+    public PerformanceGovernor(IntSupplier documentLength, Listener listener) {
+        this.documentLength = documentLength;
+        this.listener = listener;
+
+        loadSettings();
+
+        for (Feature feature : Feature.values()) {
+            FeatureState state = new FeatureState();
+            state.cooldownMillis = latencyCooldownMillis;
+            states.put(feature, state);
+        }
+
+        // Pools that report their usage after the last collection
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getCollectionUsage() != null) {
+                heapPools.add(pool);
+            }
+        }
+    }
+
+    /**
+     * Starts monitoring. Evaluation runs on the event dispatch thread,
+     * while UI latency is probed from a separate daemon thread.
+     */
+    public void start() {
+        // Measure how long a task posted to the UI thread waits before it runs
+        latencyProbe = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "edt-latency-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        latencyProbe.scheduleAtFixedRate(
+            () -> {
+                long posted = System.nanoTime();
+                SwingUtilities.invokeLater(() -> {
+                    long latency = (System.nanoTime() - posted) / 1_000_000;
+                    worstLatencyMillis = Math.max(worstLatencyMillis, latency);
+                });
+            },
+            0,
+            Math.max(50, pollIntervalMillis / 4),
+            TimeUnit.MILLISECONDS
+        );
+
+        evaluationTimer = new Timer(pollIntervalMillis, e -> evaluate());
+        evaluationTimer.start();
+    }
+
+    /**
+     * Stops monitoring. Features keep their current mode.
+     */
+    public void stop() {
+        if (evaluationTimer != null) {
+            evaluationTimer.stop();
+        }
+        if (latencyProbe != null) {
+            latencyProbe.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the undo depth to use while undo depth is degraded.
+     *
+     * @return the reduced number of undo states
+     */
+    public int getDegradedUndoDepth() {
+        return this.degradedUndoDepth;
+    }
+
+    /**
+     * Checks whether the document is above the large document threshold,
+     * as of the last evaluation.
+     *
+     * @return true if the document is large, false otherwise
+     */
+    public boolean isDocumentLarge() {
+        return this.documentLarge;
+    }
+
+    /**
+     * Checks whether a feature is currently degraded.
+     *
+     * @param feature  the feature to check
+     * @return         true if degraded, false if running normally
+     */
+    public boolean isDegraded(Feature feature) {
+        return states.get(feature).degraded;
+    }
+
+    /**
+     * Builds a status line listing the degraded features.
+     *
+     * @return the status text, or an empty string if all features run normally
+     */
+    public String getStatusText() {
+        StringBuilder sb = new StringBuilder();
+        for (Feature feature : Feature.values()) {
+            if (states.get(feature).degraded) {
+                sb.append(sb.length() == 0 ? "Large document mode: " : ", ");
+                sb.append(feature.getDescription());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Samples all signals and updates every feature whose mode should change.
+     */
+    private void evaluate() {
+        int length = documentLength.getAsInt();
+        double heapUsage = heapUsageAfterCollection();
+        long latency = worstLatencyMillis;
+        worstLatencyMillis = 0;
+
+        // Each signal turns on at its threshold and off only well below it
+        documentLarge = withHysteresis(documentLarge, length, largeDocumentChars);
+        heapHigh = withHysteresis(heapHigh, heapUsage, heapPressure);
+        edtSlow = withHysteresis(edtSlow, latency, edtLatencyMillis);
+
+        String reason = String.format(
+            "document %,d chars, heap after GC %.0f%%, UI latency %d ms",
+            length,
+            heapUsage * 100,
+            latency
+        );
+
+        long now = System.currentTimeMillis();
+        update(Feature.SOFT_WRAP, documentLarge || edtSlow, length, now, reason);
+        update(Feature.UNDO_DEPTH, documentLarge || heapHigh, length, now, reason);
+        update(Feature.LIVE_TEXT_SYNC, documentLarge || edtSlow, length, now, reason);
+        update(Feature.BACKGROUND_TASKS, heapHigh || edtSlow, length, now, reason);
+    }
+
+    /**
+     * Measures heap usage as of the last garbage collection of each pool.
+     * Falls back to the current usage if no pool reports it.
+     *
+     * @return the used share of the maximum heap
+     */
+    private double heapUsageAfterCollection() {
+        MemoryUsage heap = memoryBean.getHeapMemoryUsage();
+        long maxHeap = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+
+        if (heapPools.isEmpty()) {
+            return (double) heap.getUsed() / maxHeap;
+        }
+
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            used += pool.getCollectionUsage().getUsed();
+        }
+        return (double) used / maxHeap;
+    }
+
+    /**
+     * Degrades a feature as soon as it should be, and restores it only after
+     * its causes stayed clear for recoverySamples samples. A feature degraded
+     * by UI latency also waits until the document has shrunk or its cooldown
+     * has passed. Each switch is logged together with its effect.
+     *
+     * @param feature        the feature to update
+     * @param shouldDegrade  true if the feature should be degraded
+     * @param length         the current document length
+     * @param now            the current time in milliseconds
+     * @param reason         the signal values that led to the decision
+     */
+    private void update(Feature feature, boolean shouldDegrade, int length, long now, String reason) {
+        FeatureState state = states.get(feature);
+
+        if (state.degraded) {
+            if (shouldDegrade) {
+                state.clearSamples = 0;
+                return;
+            }
+            if (++state.clearSamples < recoverySamples) {
+                return;
+            }
+            if (
+                state.latencyTriggered &&
+                length >= state.degradedLength * RECOVERY_RATIO &&
+                now - state.degradedAt < state.cooldownMillis
+            ) {
+                return;
+            }
+            state.restoredAt = now;
+        } else {
+            if (!shouldDegrade) {
+                return;
+            }
+
+            state.latencyTriggered = edtSlow;
+            if (edtSlow) {
+                // Latency right after a restore means the feature itself is the cause
+                boolean relapse = state.restoredAt > 0 && now - state.restoredAt < state.cooldownMillis;
+                state.cooldownMillis = relapse
+                    ? Math.min(state.cooldownMillis * 2, latencyCooldownMillis * MAX_COOLDOWN_FACTOR)
+                    : latencyCooldownMillis;
+                state.degradedLength = length;
+            }
+            state.degradedAt = now;
+            state.clearSamples = 0;
+        }
+
+        state.degraded = shouldDegrade;
+        String effect = listener.featureChanged(feature, shouldDegrade);
+
+        LOGGER.info(
+            (shouldDegrade ? "Degraded " : "Restored ") +
+                feature.name().toLowerCase() +
+                " (" + reason + "): " + effect
+        );
+    }
+
+    /**
+     * Applies hysteresis to a signal compared against its threshold.
+     *
+     * @param active     whether the signal is currently active
+     * @param value      the measured value
+     * @param threshold  the value at which the signal becomes active
+     * @return           the new state of the signal
+     */
+    private static boolean withHysteresis(boolean active, double value, double threshold) {
+        return active ? value >= threshold * RECOVERY_RATIO : value >= threshold;
+    }
+
+    /**
+     * Loads thresholds from the settings file and system properties.
+     * System properties take precedence over the file; missing or invalid
+     * values fall back to the defaults.
+     */
+    private void loadSettings() {
+        Properties settings = new Properties();
+        if (SETTINGS_FILE.isFile()) {
+            try (InputStream in = new FileInputStream(SETTINGS_FILE)) {
+                settings.load(in);
+            } catch (IOException e) {
+                LOGGER.warning("Cannot read " + SETTINGS_FILE + ", using default thresholds");
+            }
+        }
+        settings.putAll(System.getProperties());
+
+        largeDocumentChars = (long) setting(settings, "notepad.governor.largeDocumentChars", 5_000_000);
+        heapPressure = setting(settings, "notepad.governor.heapPressure", 0.75);
+        edtLatencyMillis = (long) setting(settings, "notepad.governor.edtLatencyMillis", 250);
+        degradedUndoDepth = (int) setting(settings, "notepad.governor.degradedUndoDepth", 10);
+        pollIntervalMillis = (int) setting(settings, "notepad.governor.pollIntervalMillis", 1000);
+        recoverySamples = (int) setting(settings, "notepad.governor.recoverySamples", 5);
+        latencyCooldownMillis = (long) setting(settings, "notepad.governor.latencyCooldownMillis", 30_000);
+    }
+
+    /**
+     * Reads a numeric setting.
+     *
+     * @param settings      the merged settings
+     * @param name          the property name
+     * @param defaultValue  the value used when the property is missing or invalid
+     * @return              the setting value
+     */
+    private static double setting(Properties settings, String name, double defaultValue) {
+        String value = settings.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Invalid value for " + name + ": " + value);
+            return defaultValue;
+        }
+    }
+}
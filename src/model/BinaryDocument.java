@@ -0,0 +1,173 @@
+package model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Model class representing a read-only binary file.
+ * The file is memory-mapped in fixed-size segments, so its bytes live
+ * outside the Java heap and are paged in by the OS only when accessed.
+ */
+public class BinaryDocument implements Closeable {
+
+    /** Size of each mapped segment (a single mapping is limited to 2 GB). */
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    /** Number of bytes copied out and scanned at a time when searching. */
+    private static final int SEARCH_CHUNK_SIZE = 1 << 20;
+
+    private final File file;
+    private final FileChannel channel;
+    private final long length;
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Constructor that maps the whole file into memory.
+     * All segments are mapped up front; mapping only reserves address
+     * space, and it keeps later reads from touching the channel.
+     *
+     * @param file  the binary file to open
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public BinaryDocument(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.length = channel.size();
+
+        int segmentCount = (int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        this.segments = new MappedByteBuffer[segmentCount];
+
+        try {
+            for (int i = 0; i < segmentCount; i++) {
+                long start = i * SEGMENT_SIZE;
+                long size = Math.min(SEGMENT_SIZE, length - start);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the file backing this document.
+     *
+     * @return the file object
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Gets the size of the document in bytes.
+     *
+     * @return the number of bytes in the file
+     */
+    public long length() {
+        return this.length;
+    }
+
+    /**
+     * Gets the byte stored at the given offset.
+     *
+     * @param offset  the absolute offset in the file
+     * @return        the byte at that offset
+     */
+    public byte byteAt(long offset) {
+        return segments[(int) (offset / SEGMENT_SIZE)].get((int) (offset % SEGMENT_SIZE));
+    }
+
+    /**
+     * Copies a range of bytes into the given buffer.
+     *
+     * @param offset  the absolute offset of the first byte to copy
+     * @param dst     the destination buffer
+     * @param dstOff  the position in the destination buffer to start at
+     * @param len     the maximum number of bytes to copy
+     * @return        the number of bytes copied, less than len at end of file
+     */
+    public int read(long offset, byte[] dst, int dstOff, int len) {
+        int count = (int) Math.max(0, Math.min(len, length - offset));
+        int copied = 0;
+
+        // A range may span the boundary between two segments
+        while (copied < count) {
+            long position = offset + copied;
+            MappedByteBuffer segment = segments[(int) (position / SEGMENT_SIZE)];
+            int segmentOffset = (int) (position % SEGMENT_SIZE);
+            int chunk = Math.min(count - copied, segment.limit() - segmentOffset);
+            segment.get(segmentOffset, dst, dstOff + copied, chunk);
+            copied += chunk;
+        }
+
+        return count;
+    }
+
+    /**
+     * Searches for the next occurrence of a byte pattern.
+     * The file is copied out of its mapped segments a chunk at a time and
+     * each chunk is scanned as an array; consecutive chunks overlap by the
+     * length of the pattern, so matches across chunk and segment boundaries
+     * are found too. The search stops early and returns -1 if the calling
+     * thread is interrupted.
+     *
+     * @param pattern  the bytes to search for
+     * @param from     the offset to start searching at
+     * @return         the offset of the first match, or -1 if none is found
+     */
+    public long indexOf(byte[] pattern, long from) {
+        if (pattern.length == 0) {
+            return -1;
+        }
+
+        byte first = pattern[0];
+        byte[] chunk = new byte[Math.max(SEARCH_CHUNK_SIZE, pattern.length * 2)];
+        long position = Math.max(0, from);
+
+        while (position <= length - pattern.length) {
+            // Check for cancellation once per chunk scanned
+            if (Thread.currentThread().isInterrupted()) {
+                return -1;
+            }
+
+            // Only matches that lie entirely within the chunk are checked here
+            int count = read(position, chunk, 0, chunk.length);
+            int last = count - pattern.length;
+
+            for (int i = 0; i <= last; i++) {
+                if (chunk[i] != first) {
+                    continue;
+                }
+
+                int j = 1;
+                while (j < pattern.length && chunk[i + j] == pattern[j]) {
+                    j++;
+                }
+
+                if (j == pattern.length) {
+                    return position + i;
+                }
+            }
+
+            // The next chunk starts at the first match position not checked yet
+            position += last + 1;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Closes the underlying file channel.
+     * The mapped segments are released once they are garbage collected.
+     *
+     * @throws IOException if closing the channel fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,219 @@
+package model;
+
+import java.io.File;
+import java.util.Stack;
+
+/**
+ * Model class representing one document of the editing session.
+ * Holds what is needed to show the document again when it is activated:
+ * its file, caret and scroll position, and any unsaved text. Inactive
+ * documents keep their unsaved text in memory or on disk, but never the
+ * content of their file, which is read again on activation.
+ */
+public class SessionDocument {
+
+    private final long id;
+    private File file;
+    private int caretPosition;
+    private int scrollX;
+    private int scrollY;
+    private boolean modified;
+
+    /** Unsaved text held in memory, or null if not loaded or not modified */
+    private String unsavedText;
+    /** Whether the unsaved text is stored in the session directory */
+    private boolean bufferOnDisk;
+
+    /** Undo history kept while the document is inactive */
+    private Stack<String> undoStack = new Stack<>();
+    private Stack<String> redoStack = new Stack<>();
+    private String lastSavedState = "";
+
+    /**
+     * Constructor that creates a document entry.
+     *
+     * @param id    a session-unique identifier, used to name its buffer file
+     * @param file  the file of the document, or null if untitled
+     */
+    public SessionDocument(long id, File file) {
+        this.id = id;
+        this.file = file;
+    }
+
+    /**
+     * Gets the session-unique identifier of this document.
+     *
+     * @return the identifier
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * Sets the file associated with this document.
+     *
+     * @param file the file object, or null if untitled
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Gets the file associated with this document.
+     *
+     * @return the file object, or null if untitled
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Gets the name shown for this document in menus.
+     *
+     * @return the file name, or "Untitled"
+     */
+    public String getDisplayName() {
+        return file == null ? "Untitled" : file.getName();
+    }
+
+    /**
+     * Sets the caret position.
+     *
+     * @param caretPosition the caret offset in the text
+     */
+    public void setCaretPosition(int caretPosition) {
+        this.caretPosition = caretPosition;
+    }
+
+    /**
+     * Gets the caret position.
+     *
+     * @return the caret offset in the text
+     */
+    public int getCaretPosition() {
+        return this.caretPosition;
+    }
+
+    /**
+     * Sets the scroll position of the editor viewport.
+     *
+     * @param scrollX  the horizontal view position in pixels
+     * @param scrollY  the vertical view position in pixels
+     */
+    public void setScrollPosition(int scrollX, int scrollY) {
+        this.scrollX = scrollX;
+        this.scrollY = scrollY;
+    }
+
+    /**
+     * Gets the horizontal scroll position.
+     *
+     * @return the horizontal view position in pixels
+     */
+    public int getScrollX() {
+        return this.scrollX;
+    }
+
+    /**
+     * Gets the vertical scroll position.
+     *
+     * @return the vertical view position in pixels
+     */
+    public int getScrollY() {
+        return this.scrollY;
+    }
+
+    /**
+     * Sets whether the document has unsaved changes.
+     *
+     * @param modified true if modified, false otherwise
+     */
+    public void setModified(boolean modified) {
+        this.modified = modified;
+    }
+
+    /**
+     * Checks whether the document has unsaved changes.
+     *
+     * @return true if modified, false otherwise
+     */
+    public boolean isModified() {
+        return this.modified;
+    }
+
+    /**
+     * Sets the unsaved text held in memory.
+     *
+     * @param unsavedText the text, or null to release it
+     */
+    public void setUnsavedText(String unsavedText) {
+        this.unsavedText = unsavedText;
+    }
+
+    /**
+     * Gets the unsaved text held in memory.
+     *
+     * @return the text, or null if not held in memory
+     */
+    public String getUnsavedText() {
+        return this.unsavedText;
+    }
+
+    /**
+     * Sets whether the unsaved text is stored in the session directory.
+     *
+     * @param bufferOnDisk true if a buffer file exists for this document
+     */
+    public void setBufferOnDisk(boolean bufferOnDisk) {
+        this.bufferOnDisk = bufferOnDisk;
+    }
+
+    /**
+     * Checks whether the unsaved text is stored in the session directory.
+     *
+     * @return true if a buffer file exists for this document
+     */
+    public boolean isBufferOnDisk() {
+        return this.bufferOnDisk;
+    }
+
+    /**
+     * Stores the undo history of this document while it is inactive.
+     *
+     * @param undoStack       the undo states
+     * @param redoStack       the redo states
+     * @param lastSavedState  the last state recorded for undo
+     */
+    public void setUndoHistory(Stack<String> undoStack, Stack<String> redoStack, String lastSavedState) {
+        this.undoStack = undoStack;
+        this.redoStack = redoStack;
+        this.lastSavedState = lastSavedState;
+    }
+
+    /**
+     * Gets the stored undo states.
+     *
+     * @return the undo stack
+     */
+    public Stack<String> getUndoStack() {
+        return this.undoStack;
+    }
+
+    /**
+     * Gets the stored redo states.
+     *
+     * @return the redo stack
+     */
+    public Stack<String> getRedoStack() {
+        return this.redoStack;
+    }
+
+    /**
+     * Gets the last state recorded for undo.
+     *
+     * @return the last recorded state
+     */
+    public String getLastSavedState() {
+        return this.lastSavedState;
+    }
+}
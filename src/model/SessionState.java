@@ -0,0 +1,67 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Model class representing a saved editing session.
+ * Holds the documents that were open, which one was active, and the
+ * font chosen from the Format menu.
+ */
+public class SessionState {
+
+    private final List<SessionDocument> documents;
+    private final int activeIndex;
+    private final String fontName;
+    private final int fontSize;
+
+    /**
+     * Constructor that captures a session.
+     *
+     * @param documents    the open documents, in menu order
+     * @param activeIndex  the index of the active document, or -1 if none
+     * @param fontName     the editor font family
+     * @param fontSize     the editor font size in points
+     */
+    public SessionState(List<SessionDocument> documents, int activeIndex, String fontName, int fontSize) {
+        this.documents = documents;
+        this.activeIndex = activeIndex;
+        this.fontName = fontName;
+        this.fontSize = fontSize;
+    }
+
+    /**
+     * Gets the open documents.
+     *
+     * @return the documents, in menu order
+     */
+    public List<SessionDocument> getDocuments() {
+        return this.documents;
+    }
+
+    /**
+     * Gets the index of the active document.
+     *
+     * @return the index, or -1 if no document was active
+     */
+    public int getActiveIndex() {
+        return this.activeIndex;
+    }
+
+    /**
+     * Gets the editor font family.
+     *
+     * @return the font family name
+     */
+    public String getFontName() {
+        return this.fontName;
+    }
+
+    /**
+     * Gets the editor font size.
+     *
+     * @return the font size in points
+     */
+    public int getFontSize() {
+        return this.fontSize;
+    }
+}
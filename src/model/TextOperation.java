@@ -0,0 +1,410 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Model class representing an edit of a text, used for collaborative editing.
+ * An operation walks over the whole text as a sequence of components that
+ * retain, insert, or delete characters, so it applies only to a text of
+ * exactly its base length. Operations can be composed into one, and two
+ * concurrent operations can be transformed so that applying them in either
+ * order gives the same text (operational transformation).
+ */
+public class TextOperation {
+
+    /**
+     * Kinds of operation components.
+     */
+    public enum Kind {
+        /** Skips over characters, leaving them unchanged */
+        RETAIN,
+        /** Inserts new characters */
+        INSERT,
+        /** Deletes characters */
+        DELETE
+    }
+
+    /**
+     * One component of an operation.
+     */
+    public static class Component {
+
+        private final Kind kind;
+        private final int length;
+        private final String text;
+
+        /**
+         * Constructor that creates a component.
+         *
+         * @param kind    the kind of component
+         * @param length  the number of characters it covers
+         * @param text    the inserted text, or null unless kind is INSERT
+         */
+        Component(Kind kind, int length, String text) {
+            this.kind = kind;
+            this.length = length;
+            this.text = text;
+        }
+
+        /**
+         * Gets the kind of this component.
+         *
+         * @return the kind
+         */
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        /**
+         * Gets the number of characters this component retains, inserts, or deletes.
+         *
+         * @return the length in characters
+         */
+        public int getLength() {
+            return this.length;
+        }
+
+        /**
+         * Gets the inserted text.
+         *
+         * @return the text, or null unless this is an insert
+         */
+        public String getText() {
+            return this.text;
+        }
+    }
+
+    private final List<Component> components = new ArrayList<>();
+
+    /** Length of the text the operation applies to */
+    private int baseLength = 0;
+    /** Length of the text after the operation is applied */
+    private int targetLength = 0;
+
+    /**
+     * Adds a component that skips over characters.
+     *
+     * @param n  the number of characters to retain
+     * @return   this operation
+     */
+    public TextOperation retain(int n) {
+        if (n <= 0) {
+            return this;
+        }
+
+        baseLength += n;
+        targetLength += n;
+
+        Component last = last(0);
+        if (last != null && last.kind == Kind.RETAIN) {
+            setLast(0, new Component(Kind.RETAIN, last.length + n, null));
+        } else {
+            components.add(new Component(Kind.RETAIN, n, null));
+        }
+        return this;
+    }
+
+    /**
+     * Adds a component that inserts text.
+     * An insert directly after a delete is placed before it, so equal
+     * edits always have the same components.
+     *
+     * @param text  the text to insert
+     * @return      this operation
+     */
+    public TextOperation insert(String text) {
+        if (text.isEmpty()) {
+            return this;
+        }
+
+        targetLength += text.length();
+
+        Component last = last(0);
+        if (last != null && last.kind == Kind.INSERT) {
+            setLast(0, new Component(Kind.INSERT, last.length + text.length(), last.text + text));
+        } else if (last != null && last.kind == Kind.DELETE) {
+            Component beforeLast = last(1);
+            if (beforeLast != null && beforeLast.kind == Kind.INSERT) {
+                setLast(1, new Component(Kind.INSERT, beforeLast.length + text.length(), beforeLast.text + text));
+            } else {
+                components.add(components.size() - 1, new Component(Kind.INSERT, text.length(), text));
+            }
+        } else {
+            components.add(new Component(Kind.INSERT, text.length(), text));
+        }
+        return this;
+    }
+
+    /**
+     * Adds a component that deletes characters.
+     *
+     * @param n  the number of characters to delete
+     * @return   this operation
+     */
+    public TextOperation delete(int n) {
+        if (n <= 0) {
+            return this;
+        }
+
+        baseLength += n;
+
+        Component last = last(0);
+        if (last != null && last.kind == Kind.DELETE) {
+            setLast(0, new Component(Kind.DELETE, last.length + n, null));
+        } else {
+            components.add(new Component(Kind.DELETE, n, null));
+        }
+        return this;
+    }
+
+    /**
+     * Gets the components of this operation, in text order.
+     *
+     * @return an unmodifiable list of components
+     */
+    public List<Component> getComponents() {
+        return Collections.unmodifiableList(components);
+    }
+
+    /**
+     * Gets the length of the text this operation applies to.
+     *
+     * @return the base length in characters
+     */
+    public int getBaseLength() {
+        return this.baseLength;
+    }
+
+    /**
+     * Gets the length of the text after this operation is applied.
+     *
+     * @return the target length in characters
+     */
+    public int getTargetLength() {
+        return this.targetLength;
+    }
+
+    /**
+     * Checks whether this operation leaves the text unchanged.
+     *
+     * @return true if the operation only retains, false otherwise
+     */
+    public boolean isNoop() {
+        return components.isEmpty() || (components.size() == 1 && components.get(0).kind == Kind.RETAIN);
+    }
+
+    /**
+     * Applies this operation to a text in place.
+     *
+     * @param text  the text, which must have the base length of this operation
+     * @throws IllegalArgumentException if the text has a different length
+     */
+    public void applyTo(StringBuilder text) {
+        if (text.length() != baseLength) {
+            throw new IllegalArgumentException("Operation does not match the text length");
+        }
+
+        int position = 0;
+        for (Component component : components) {
+            switch (component.kind) {
+                case RETAIN:
+                    position += component.length;
+                    break;
+                case INSERT:
+                    text.insert(position, component.text);
+                    position += component.length;
+                    break;
+                case DELETE:
+                    text.delete(position, position + component.length);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Composes this operation with the one that follows it.
+     * Applying the result has the same effect as applying both in order.
+     *
+     * @param next  the operation applied after this one
+     * @return      the combined operation
+     * @throws IllegalArgumentException if next does not apply to the result of this operation
+     */
+    public TextOperation compose(TextOperation next) {
+        if (targetLength != next.baseLength) {
+            throw new IllegalArgumentException("Operations cannot be composed");
+        }
+
+        TextOperation result = new TextOperation();
+        Cursor first = new Cursor(this);
+        Cursor second = new Cursor(next);
+
+        while (first.kind != null || second.kind != null) {
+            // Deletes of the first and inserts of the second pass straight through
+            if (first.kind == Kind.DELETE) {
+                result.delete(first.length);
+                first.advance();
+                continue;
+            }
+            if (second.kind == Kind.INSERT) {
+                result.insert(second.text);
+                second.advance();
+                continue;
+            }
+
+            int n = Math.min(first.length, second.length);
+
+            if (first.kind == Kind.RETAIN && second.kind == Kind.RETAIN) {
+                result.retain(n);
+            } else if (first.kind == Kind.INSERT && second.kind == Kind.RETAIN) {
+                result.insert(first.text.substring(0, n));
+            } else if (first.kind == Kind.RETAIN && second.kind == Kind.DELETE) {
+                result.delete(n);
+            }
+            // Text inserted by the first and deleted by the second leaves no trace
+
+            first.consume(n);
+            second.consume(n);
+        }
+
+        return result;
+    }
+
+    /**
+     * Transforms two concurrent operations that apply to the same text.
+     * Returns a' and b' such that applying a then b' gives the same text as
+     * applying b then a'. When both insert at the same position, the text
+     * of a is placed first.
+     *
+     * @param a  the first operation
+     * @param b  the second operation
+     * @return   an array holding a' and b'
+     * @throws IllegalArgumentException if the operations apply to texts of different lengths
+     */
+    public static TextOperation[] transform(TextOperation a, TextOperation b) {
+        if (a.baseLength != b.baseLength) {
+            throw new IllegalArgumentException("Operations cannot be transformed");
+        }
+
+        TextOperation aPrime = new TextOperation();
+        TextOperation bPrime = new TextOperation();
+        Cursor first = new Cursor(a);
+        Cursor second = new Cursor(b);
+
+        while (first.kind != null || second.kind != null) {
+            // Inserted text is retained by the other operation
+            if (first.kind == Kind.INSERT) {
+                aPrime.insert(first.text);
+                bPrime.retain(first.length);
+                first.advance();
+                continue;
+            }
+            if (second.kind == Kind.INSERT) {
+                aPrime.retain(second.length);
+                bPrime.insert(second.text);
+                second.advance();
+                continue;
+            }
+
+            int n = Math.min(first.length, second.length);
+
+            if (first.kind == Kind.RETAIN && second.kind == Kind.RETAIN) {
+                aPrime.retain(n);
+                bPrime.retain(n);
+            } else if (first.kind == Kind.DELETE && second.kind == Kind.RETAIN) {
+                aPrime.delete(n);
+            } else if (first.kind == Kind.RETAIN && second.kind == Kind.DELETE) {
+                bPrime.delete(n);
+            }
+            // Text deleted by both is already gone for either of them
+
+            first.consume(n);
+            second.consume(n);
+        }
+
+        return new TextOperation[] { aPrime, bPrime };
+    }
+
+    /**
+     * Gets a component counted from the end.
+     *
+     * @param fromEnd  0 for the last component, 1 for the one before it
+     * @return         the component, or null if there is none
+     */
+    private Component last(int fromEnd) {
+        int index = components.size() - 1 - fromEnd;
+        return index >= 0 ? components.get(index) : null;
+    }
+
+    /**
+     * Replaces a component counted from the end.
+     *
+     * @param fromEnd    0 for the last component, 1 for the one before it
+     * @param component  the new component
+     */
+    private void setLast(int fromEnd, Component component) {
+        components.set(components.size() - 1 - fromEnd, component);
+    }
+
+    /**
+     * Walks over the components of an operation, allowing a component
+     * to be consumed in parts. The kind is null once all are consumed.
+     */
+    private static class Cursor {
+
+        private final List<Component> components;
+        private int index = 0;
+
+        private Kind kind;
+        private int length;
+        private String text;
+
+        /**
+         * Constructor that starts at the first component.
+         *
+         * @param operation  the operation to walk over
+         */
+        Cursor(TextOperation operation) {
+            this.components = operation.components;
+            advance();
+        }
+
+        /**
+         * Moves to the next component.
+         */
+        void advance() {
+            if (index < components.size()) {
+                Component component = components.get(index++);
+                kind = component.kind;
+                length = component.length;
+                text = component.text;
+            } else {
+                kind = null;
+                length = 0;
+                text = null;
+            }
+        }
+
+        /**
+         * Consumes characters of the current component, moving to the
+         * next one once it is used up.
+         *
+         * @param n  the number of characters consumed
+         */
+        void consume(int n) {
+            if (kind == null) {
+                throw new IllegalArgumentException("Operation is shorter than the text");
+            }
+
+            if (n >= length) {
+                advance();
+            } else {
+                length -= n;
+                if (text != null) {
+                    text = text.substring(n);
+                }
+            }
+        }
+    }
+}
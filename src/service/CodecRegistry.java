@@ -0,0 +1,62 @@
+package service;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of the compression codecs available to the application.
+ * Holds the built-in gzip codec plus any codec found on the classpath
+ * through ServiceLoader.
+ */
+public class CodecRegistry {
+
+    private static final List<CompressionCodec> CODECS = loadCodecs();
+
+    /**
+     * Finds the codec for a file based on its extension.
+     *
+     * @param file  the file to look up
+     * @return      the matching codec, or null if the file is not compressed
+     */
+    public static CompressionCodec forFile(File file) {
+        String name = file.getName().toLowerCase();
+        for (CompressionCodec codec : CODECS) {
+            for (String extension : codec.getExtensions()) {
+                if (name.endsWith("." + extension)) {
+                    return codec;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the extensions of all registered codecs.
+     *
+     * @return the extensions, without the dot
+     */
+    public static List<String> getExtensions() {
+        List<String> extensions = new ArrayList<>();
+        for (CompressionCodec codec : CODECS) {
+            extensions.addAll(codec.getExtensions());
+        }
+        return extensions;
+    }
+
+    /**
+     * Builds the codec list: gzip first, then any plugged-in codecs.
+     *
+     * @return the registered codecs
+     */
+    private static List<CompressionCodec> loadCodecs() {
+        List<CompressionCodec> codecs = new ArrayList<>();
+        codecs.add(new GzipCodec());
+        for (CompressionCodec codec : ServiceLoader.load(CompressionCodec.class)) {
+            codecs.add(codec);
+        }
+        return Collections.unmodifiableList(codecs);
+    }
+}
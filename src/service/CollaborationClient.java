@@ -0,0 +1,220 @@
+package service;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import model.TextOperation;
+
+/**
+ * Connection of one editor to a collaboration server.
+ * Connecting waits for the server's snapshot of the document. Afterwards,
+ * messages are read and decoded on a background thread and handed to a
+ * listener, and operations are written by another background thread, so
+ * the network never blocks the caller.
+ */
+public class CollaborationClient implements Closeable {
+
+    /** Time allowed to connect and receive the document. */
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Receives messages from the server. Called on the reader thread.
+     */
+    public interface Listener {
+        /**
+         * Called when the server applied this client's last operation.
+         */
+        void acknowledged();
+
+        /**
+         * Called with an operation of another client.
+         *
+         * @param operation  the operation, based on the revision after the previous message
+         */
+        void remoteOperation(TextOperation operation);
+
+        /**
+         * Called once when the connection ends.
+         *
+         * @param cause  the error that ended it, or null if it was closed by this client
+         */
+        void disconnected(IOException cause);
+    }
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "collaboration-client-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int revision;
+    private final String text;
+
+    /**
+     * Constructor that connects to a server and receives the document.
+     *
+     * @param host  the server host name
+     * @param port  the server port
+     * @throws IOException if connecting fails or the server does not answer
+     */
+    public CollaborationClient(String host, int port) throws IOException {
+        this.socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+
+            CollaborationProtocol.Frame hello = CollaborationProtocol.readFrame(in);
+            if (hello.getType() != CollaborationProtocol.HELLO) {
+                throw new IOException("Unexpected message type " + hello.getType());
+            }
+
+            InputStream payload = hello.getPayload();
+            CollaborationProtocol.readVarint(payload);  // peer id, not needed by the client
+            this.revision = CollaborationProtocol.readVarint(payload);
+            this.text = CollaborationProtocol.readText(payload);
+
+            // Later messages may be arbitrarily far apart
+            socket.setSoTimeout(0);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the revision of the document received on connection.
+     *
+     * @return the revision
+     */
+    public int getRevision() {
+        return this.revision;
+    }
+
+    /**
+     * Gets the document text received on connection.
+     *
+     * @return the text
+     */
+    public String getText() {
+        return this.text;
+    }
+
+    /**
+     * Starts reading messages from the server.
+     *
+     * @param listener  receives the messages
+     */
+    public void start(Listener listener) {
+        Thread reader = new Thread(() -> read(listener), "collaboration-client-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Sends an operation to the server in the background.
+     *
+     * @param baseRevision  the last revision this client has seen
+     * @param operation     the operation
+     */
+    public void send(int baseRevision, TextOperation operation) {
+        write(CollaborationProtocol.OPERATION, CollaborationProtocol.encodeOperation(baseRevision, operation));
+    }
+
+    /**
+     * Tells the server in the background which revision this client has seen,
+     * so it can drop older history. Only valid while no operation is in flight.
+     *
+     * @param revision  the last revision this client has seen
+     */
+    public void sendSeen(int revision) {
+        write(CollaborationProtocol.SEEN, CollaborationProtocol.encodeOperation(revision, null));
+    }
+
+    /**
+     * Queues a frame for the server, in order.
+     *
+     * @param type     the message type
+     * @param payload  the payload
+     */
+    private void write(byte type, byte[] payload) {
+        try {
+            writer.execute(() -> {
+                try {
+                    CollaborationProtocol.writeFrame(out, type, payload);
+                } catch (IOException e) {
+                    // The reader thread notices the broken connection and reports it
+                    closeSocket();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Already closed
+        }
+    }
+
+    /**
+     * Closes the connection. The listener is told with a null cause.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        closeSocket();
+    }
+
+    /**
+     * Reads messages until the connection ends.
+     *
+     * @param listener  receives the messages
+     */
+    private void read(Listener listener) {
+        IOException cause = null;
+
+        try {
+            while (true) {
+                CollaborationProtocol.Frame frame = CollaborationProtocol.readFrame(in);
+                InputStream payload = frame.getPayload();
+
+                if (frame.getType() == CollaborationProtocol.ACK) {
+                    listener.acknowledged();
+                } else if (frame.getType() == CollaborationProtocol.REMOTE) {
+                    CollaborationProtocol.readVarint(payload);  // revision, implied by message order
+                    listener.remoteOperation(CollaborationProtocol.readOperation(payload));
+                } else {
+                    throw new IOException("Unexpected message type " + frame.getType());
+                }
+            }
+        } catch (IOException e) {
+            // A socket closed by close() is not an error
+            if (!writer.isShutdown()) {
+                cause = e;
+            }
+        } catch (RuntimeException e) {
+            // A message that decodes but does not make sense, reported like a broken connection
+            cause = new IOException("Invalid message from the server", e);
+        } finally {
+            writer.shutdown();
+            closeSocket();
+            listener.disconnected(cause);
+        }
+    }
+
+    /**
+     * Closes the socket, ending the reader thread.
+     */
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+    }
+}
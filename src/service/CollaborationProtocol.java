@@ -0,0 +1,364 @@
+package service;
+
+import java.io.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import model.TextOperation;
+
+/**
+ * Wire format shared by the collaboration server and its clients.
+ * Every message is a frame: a type byte, a flags byte, the payload length
+ * as a varint, and the payload. Payloads above a small threshold are
+ * deflate-compressed. Operations are encoded as varint component headers,
+ * so a typical edit (skip to a position, insert a few characters, skip the
+ * rest) takes only a handful of bytes.
+ */
+public class CollaborationProtocol {
+
+    /** Server to client: peer id, revision, and the document text. */
+    public static final byte HELLO = 1;
+    /** Client to server: the revision an operation is based on, and the operation. */
+    public static final byte OPERATION = 2;
+    /** Server to client: the client's last operation was applied. */
+    public static final byte ACK = 3;
+    /** Server to client: an operation of another client. */
+    public static final byte REMOTE = 4;
+    /** Client to server: the last revision the client has seen, sent while it has no edits in flight. */
+    public static final byte SEEN = 5;
+
+    /** Flag set when the payload is deflate-compressed. */
+    private static final int FLAG_DEFLATED = 1;
+
+    /** Payloads smaller than this are sent uncompressed. */
+    private static final int COMPRESSION_THRESHOLD = 512;
+
+    /** Largest payload accepted, to reject corrupt length fields. */
+    private static final int MAX_PAYLOAD_SIZE = 256 * 1024 * 1024;
+
+    /**
+     * A decoded frame.
+     */
+    public static class Frame {
+
+        private final byte type;
+        private final byte[] payload;
+
+        /**
+         * Constructor that creates a frame.
+         *
+         * @param type     the message type
+         * @param payload  the uncompressed payload
+         */
+        public Frame(byte type, byte[] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+
+        /**
+         * Gets the message type.
+         *
+         * @return one of HELLO, OPERATION, ACK, REMOTE, or SEEN
+         */
+        public byte getType() {
+            return this.type;
+        }
+
+        /**
+         * Gets a stream over the uncompressed payload.
+         *
+         * @return the payload stream
+         */
+        public InputStream getPayload() {
+            return new ByteArrayInputStream(payload);
+        }
+    }
+
+    /**
+     * Writes a frame, compressing the payload if it is large.
+     *
+     * @param out      the stream to write to
+     * @param type     the message type
+     * @param payload  the uncompressed payload
+     * @throws IOException if writing fails
+     */
+    public static void writeFrame(OutputStream out, byte type, byte[] payload) throws IOException {
+        int flags = 0;
+
+        if (payload.length >= COMPRESSION_THRESHOLD) {
+            byte[] deflated = deflate(payload);
+            // Already compressed content may not shrink any further
+            if (deflated.length < payload.length) {
+                payload = deflated;
+                flags |= FLAG_DEFLATED;
+            }
+        }
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(8);
+        header.write(type);
+        header.write(flags);
+        writeVarint(header, payload.length);
+
+        out.write(header.toByteArray());
+        out.write(payload);
+        out.flush();
+    }
+
+    /**
+     * Reads a frame, decompressing its payload if needed.
+     *
+     * @param in  the stream to read from
+     * @return    the frame
+     * @throws EOFException if the stream ended before a frame
+     * @throws IOException if reading fails or the frame is malformed
+     */
+    public static Frame readFrame(InputStream in) throws IOException {
+        int type = in.read();
+        int flags = in.read();
+        if (type < 0 || flags < 0) {
+            throw new EOFException("Connection closed");
+        }
+
+        int length = readVarint(in);
+        if (length < 0 || length > MAX_PAYLOAD_SIZE) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+
+        byte[] payload = in.readNBytes(length);
+        if (payload.length < length) {
+            throw new EOFException("Connection closed");
+        }
+
+        if ((flags & FLAG_DEFLATED) != 0) {
+            payload = inflate(payload);
+        }
+        return new Frame((byte) type, payload);
+    }
+
+    /**
+     * Writes a HELLO payload.
+     *
+     * @param peerId    the id assigned to the client
+     * @param revision  the revision of the document text
+     * @param text      the document text
+     * @return          the payload
+     */
+    public static byte[] encodeHello(int peerId, int revision, String text) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(text.length() + 16);
+        writeVarint(out, peerId);
+        writeVarint(out, revision);
+        writeChars(out, text);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes a payload holding a revision and, optionally, an operation.
+     *
+     * @param revision   the revision
+     * @param operation  the operation, or null to write only the revision
+     * @return           the payload
+     */
+    public static byte[] encodeOperation(int revision, TextOperation operation) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, revision);
+
+        if (operation != null) {
+            writeVarint(out, operation.getComponents().size());
+            for (TextOperation.Component component : operation.getComponents()) {
+                // Kind in the low two bits, length in the rest
+                writeVarint(out, component.getLength() << 2 | component.getKind().ordinal());
+                if (component.getKind() == TextOperation.Kind.INSERT) {
+                    writeChars(out, component.getText());
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads an operation written by encodeOperation(), after its revision.
+     *
+     * @param in  the payload stream, positioned after the revision
+     * @return    the operation
+     * @throws IOException if the payload is malformed
+     */
+    public static TextOperation readOperation(InputStream in) throws IOException {
+        TextOperation operation = new TextOperation();
+        int count = readVarint(in);
+        TextOperation.Kind[] kinds = TextOperation.Kind.values();
+
+        for (int i = 0; i < count; i++) {
+            int header = readVarint(in);
+            int length = header >>> 2;
+            int kind = header & 3;
+
+            if (kind >= kinds.length) {
+                throw new IOException("Invalid operation component");
+            }
+
+            switch (kinds[kind]) {
+                case RETAIN:
+                    operation.retain(length);
+                    break;
+                case INSERT:
+                    operation.insert(readChars(in, length));
+                    break;
+                case DELETE:
+                    operation.delete(length);
+                    break;
+            }
+        }
+        return operation;
+    }
+
+    /**
+     * Reads the text of a HELLO payload, after its peer id and revision.
+     *
+     * @param in  the payload stream
+     * @return    the document text
+     * @throws IOException if the payload is malformed
+     */
+    public static String readText(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = readVarintOrEnd(in)) >= 0) {
+            sb.append((char) c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes an unsigned varint: seven bits per byte, low bits first.
+     *
+     * @param out    the buffer to write to
+     * @param value  the non-negative value
+     */
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @param in  the stream to read from
+     * @return    the value
+     * @throws IOException if the stream ends or the varint is too long
+     */
+    public static int readVarint(InputStream in) throws IOException {
+        int value = readVarintOrEnd(in);
+        if (value < 0) {
+            throw new EOFException("Unexpected end of message");
+        }
+        return value;
+    }
+
+    /**
+     * Reads an unsigned varint, or reports the end of the stream.
+     *
+     * @param in  the stream to read from
+     * @return    the value, or -1 if the stream ended before it
+     * @throws IOException if the stream ends inside the varint or it is too long
+     */
+    private static int readVarintOrEnd(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) {
+                    return -1;
+                }
+                throw new EOFException("Unexpected end of message");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint too long");
+    }
+
+    /**
+     * Writes text as one varint per UTF-16 char. ASCII takes one byte per
+     * char, and text split inside a surrogate pair survives unchanged.
+     *
+     * @param out   the buffer to write to
+     * @param text  the text
+     */
+    private static void writeChars(ByteArrayOutputStream out, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            writeVarint(out, text.charAt(i));
+        }
+    }
+
+    /**
+     * Reads text written by writeChars().
+     *
+     * @param in      the stream to read from
+     * @param length  the number of chars
+     * @return        the text
+     * @throws IOException if the stream ends early
+     */
+    private static String readChars(InputStream in, int length) throws IOException {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) readVarint(in));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Compresses a payload.
+     *
+     * @param payload  the uncompressed bytes
+     * @return         the compressed bytes
+     */
+    private static byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(payload);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2 + 16);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    /**
+     * Decompresses a payload.
+     *
+     * @param payload  the compressed bytes
+     * @return         the uncompressed bytes
+     * @throws IOException if the payload is not valid deflate data
+     */
+    private static byte[] inflate(byte[] payload) throws IOException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(payload);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 4);
+        byte[] buffer = new byte[8192];
+        try {
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated compressed frame");
+                }
+                out.write(buffer, 0, n);
+                if (out.size() > MAX_PAYLOAD_SIZE) {
+                    throw new IOException("Compressed frame too large");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid compressed frame", e);
+        } finally {
+            inflater.end();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,322 @@
+package service;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Logger;
+import model.TextOperation;
+
+/**
+ * Small relay server for collaborative editing.
+ * Holds the authoritative copy of the document and numbers every applied
+ * operation with a revision. An operation sent by a client is based on the
+ * last revision that client has seen; the server transforms it against the
+ * operations applied since then, applies it, acknowledges it to its sender,
+ * and relays it to all other clients.
+ *
+ * Clients are not authenticated, so by default the server only accepts
+ * connections from the same computer.
+ */
+public class CollaborationServer implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(CollaborationServer.class.getName());
+
+    /** Port used when hosting without choosing one. */
+    public static final int DEFAULT_PORT = 7070;
+
+    private final ServerSocket serverSocket;
+    private final List<Peer> peers = new CopyOnWriteArrayList<>();
+
+    /** Document text at the current revision, guarded by this */
+    private final StringBuilder document;
+    /** Operations applied since the oldest revision a client may still send against */
+    private final List<TextOperation> history = new ArrayList<>();
+    /** Revision the first history entry applies to */
+    private int historyStart = 0;
+    /** Number of operations applied so far */
+    private int revision = 0;
+    private int nextPeerId = 1;
+
+    /**
+     * Constructor that starts a server for a document,
+     * accepting connections from this computer only.
+     *
+     * @param port  the TCP port to listen on, or 0 for any free port
+     * @param text  the initial document text
+     * @throws IOException if the port cannot be opened
+     */
+    public CollaborationServer(int port, String text) throws IOException {
+        this(port, text, false);
+    }
+
+    /**
+     * Constructor that starts a server for a document.
+     *
+     * @param port     the TCP port to listen on, or 0 for any free port
+     * @param text     the initial document text
+     * @param network  true to accept connections on all network interfaces,
+     *                 false to accept them from this computer only
+     * @throws IOException if the port cannot be opened
+     */
+    public CollaborationServer(int port, String text, boolean network) throws IOException {
+        this.serverSocket = new ServerSocket(port, 0, network ? null : InetAddress.getLoopbackAddress());
+        this.document = new StringBuilder(text);
+
+        Thread acceptThread = new Thread(this::acceptClients, "collaboration-server");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops the server and disconnects all clients.
+     */
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        for (Peer peer : peers) {
+            peer.close();
+        }
+    }
+
+    /**
+     * Accepts clients until the server socket is closed.
+     */
+    private void acceptClients() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connect(new Peer(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    LOGGER.warning("Cannot accept collaboration client: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers a new client and sends it the current document.
+     * Done under the lock, so the client sees every operation after its snapshot.
+     *
+     * @param peer  the new client
+     */
+    private synchronized void connect(Peer peer) {
+        peer.id = nextPeerId++;
+        peer.revision = revision;
+        peer.send(CollaborationProtocol.HELLO, CollaborationProtocol.encodeHello(peer.id, revision, document.toString()));
+        peers.add(peer);
+        peer.startReading();
+    }
+
+    /**
+     * Applies an operation sent by a client.
+     *
+     * @param peer          the sending client
+     * @param baseRevision  the revision the operation is based on
+     * @param operation     the operation
+     * @throws IOException if the operation does not fit the document
+     */
+    private synchronized void receive(Peer peer, int baseRevision, TextOperation operation) throws IOException {
+        if (baseRevision < historyStart || baseRevision > revision) {
+            throw new IOException("Operation based on unknown revision " + baseRevision);
+        }
+
+        try {
+            // Bring the operation up to date with everything applied since its base
+            for (int i = baseRevision - historyStart; i < history.size(); i++) {
+                operation = TextOperation.transform(operation, history.get(i))[0];
+            }
+            operation.applyTo(document);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Operation does not fit the document", e);
+        }
+
+        history.add(operation);
+        revision++;
+        // The client sends nothing more until it has seen the acknowledgement
+        peer.revision = revision;
+
+        byte[] ack = CollaborationProtocol.encodeOperation(revision, null);
+        byte[] remote = CollaborationProtocol.encodeOperation(revision, operation);
+        for (Peer other : peers) {
+            if (other == peer) {
+                other.send(CollaborationProtocol.ACK, ack);
+            } else {
+                other.send(CollaborationProtocol.REMOTE, remote);
+            }
+        }
+
+        trimHistory();
+    }
+
+    /**
+     * Records the revision a client reported as seen, and drops history
+     * it no longer needs.
+     *
+     * @param peer      the client
+     * @param seen      the last revision the client has seen
+     * @throws IOException if the revision is not one the server has reached
+     */
+    private synchronized void seen(Peer peer, int seen) throws IOException {
+        if (seen > revision) {
+            throw new IOException("Unknown revision " + seen);
+        }
+
+        peer.revision = Math.max(peer.revision, seen);
+        trimHistory();
+    }
+
+    /**
+     * Drops history entries no client can still base an operation on.
+     * A client's next operation is based on at least the revision it last
+     * reported as seen, the revision of the acknowledgement of its previous
+     * operation, or the revision of its snapshot. Clients that only read
+     * report what they have seen, so they do not hold history back either.
+     */
+    private void trimHistory() {
+        int oldest = revision;
+        for (Peer peer : peers) {
+            oldest = Math.min(oldest, peer.revision);
+        }
+
+        if (oldest > historyStart) {
+            history.subList(0, oldest - historyStart).clear();
+            historyStart = oldest;
+        }
+    }
+
+    /**
+     * Removes a disconnected client.
+     *
+     * @param peer  the client
+     */
+    private synchronized void disconnect(Peer peer) {
+        peers.remove(peer);
+        peer.close();
+        trimHistory();
+    }
+
+    /**
+     * Connection to one client, with a reader thread and a writer thread
+     * so a slow client never holds up the others.
+     */
+    private class Peer {
+
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final ExecutorService writer;
+
+        /** Id assigned on connection */
+        private int id;
+        /** Oldest revision this client may still base an operation on, guarded by the server */
+        private int revision;
+
+        /**
+         * Constructor that wraps an accepted connection.
+         *
+         * @param socket  the client socket
+         * @throws IOException if the socket streams cannot be opened
+         */
+        Peer(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+            this.writer = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "collaboration-peer-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * Starts the thread that reads operations from the client.
+         */
+        void startReading() {
+            Thread reader = new Thread(this::read, "collaboration-peer-" + id);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        /**
+         * Reads operations until the client disconnects or misbehaves.
+         */
+        private void read() {
+            try {
+                while (true) {
+                    CollaborationProtocol.Frame frame = CollaborationProtocol.readFrame(in);
+                    InputStream payload = frame.getPayload();
+
+                    if (frame.getType() == CollaborationProtocol.OPERATION) {
+                        int baseRevision = CollaborationProtocol.readVarint(payload);
+                        receive(this, baseRevision, CollaborationProtocol.readOperation(payload));
+                    } else if (frame.getType() == CollaborationProtocol.SEEN) {
+                        seen(this, CollaborationProtocol.readVarint(payload));
+                    } else {
+                        throw new IOException("Unexpected message type " + frame.getType());
+                    }
+                }
+            } catch (IOException e) {
+                if (!socket.isClosed() && !(e instanceof EOFException)) {
+                    LOGGER.warning("Disconnecting collaboration client " + id + ": " + e.getMessage());
+                }
+            } finally {
+                disconnect(this);
+            }
+        }
+
+        /**
+         * Queues a frame for the client, in order.
+         *
+         * @param type     the message type
+         * @param payload  the payload
+         */
+        void send(byte type, byte[] payload) {
+            try {
+                writer.execute(() -> {
+                    try {
+                        CollaborationProtocol.writeFrame(out, type, payload);
+                    } catch (IOException e) {
+                        // The reader thread notices the broken connection and disconnects
+                        close();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Already disconnected
+            }
+        }
+
+        /**
+         * Closes the connection.
+         */
+        void close() {
+            writer.shutdown();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+    }
+}
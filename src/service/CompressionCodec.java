@@ -0,0 +1,48 @@
+package service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Compression format that files can be transparently opened and saved with.
+ * Additional codecs (for example zstd or xz) are discovered with
+ * java.util.ServiceLoader: an implementation on the classpath is registered
+ * by listing it in META-INF/services/service.CompressionCodec.
+ */
+public interface CompressionCodec {
+
+    /**
+     * Gets a human-readable name for the format.
+     *
+     * @return the format name, such as "gzip"
+     */
+    String getName();
+
+    /**
+     * Gets the file name extensions handled by this codec, without the dot.
+     *
+     * @return the extensions, such as "gz"
+     */
+    List<String> getExtensions();
+
+    /**
+     * Wraps a stream of compressed data so that reading it yields the original data.
+     *
+     * @param in  the compressed input
+     * @return    a stream of decompressed data
+     * @throws IOException if the stream cannot be read or has an invalid header
+     */
+    InputStream decompress(InputStream in) throws IOException;
+
+    /**
+     * Wraps a stream so that data written to it is compressed.
+     * Closing the returned stream finishes the compressed data and closes the target.
+     *
+     * @param out  the target of the compressed data
+     * @return     a stream accepting uncompressed data
+     * @throws IOException if the compressed header cannot be written
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+}
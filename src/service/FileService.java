@@ -1,36 +1,112 @@
 package service;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
 
 /**
  * Service class that handles file I/O operations for text files.
- * Provides static methods for saving and reading text files.
+ * Provides static methods for saving and reading text files, optionally
+ * compressed, and for detecting files that should not be decoded as text.
  */
 public class FileService {
 
+    /** Approximate number of characters handed over per chunk when streaming. */
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    /** Size of the buffers used when streaming a file. */
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    /** Number of leading bytes inspected when detecting binary content. */
+    private static final int BINARY_SAMPLE_SIZE = 8192;
+
+    /** Fraction of suspicious bytes above which a file is treated as binary. */
+    private static final double BINARY_THRESHOLD = 0.10;
+
     /**
      * Saves text content to a file.
+     * Files with a compressed extension (such as .gz) are compressed on the way out.
      *
      * @param file  the target file
      * @param text  the text content to save
      * @throws IOException if writing to the file fails
      */
     public static void saveFile(File file, String text) throws IOException {
-        FileWriter fw = new FileWriter(file);
-        fw.write(text);
-        fw.close();
+        CompressionCodec codec = CodecRegistry.forFile(file);
+
+        if (codec == null) {
+            FileWriter fw = new FileWriter(file);
+            fw.write(text);
+            fw.close();
+            return;
+        }
+
+        // Same default charset as FileWriter, but written through the codec
+        try (Writer writer = new OutputStreamWriter(
+            codec.compress(new BufferedOutputStream(new FileOutputStream(file))),
+            Charset.defaultCharset()
+        )) {
+            writer.write(text);
+        }
     }
 
     /**
      * Reads text content from a file.
      * Preserves line separators appropriate for the current OS.
+     * Compressed files are decompressed transparently.
      *
      * @param file  the file to read
      * @return      the file content as a string
      * @throws IOException if reading the file fails
      */
     public static String readFile(File file) throws IOException {
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+        StringBuilder sb = new StringBuilder();
+        streamFile(file, sb::append);
+        return sb.toString();
+    }
+
+    /**
+     * Gets the text that readFile() would return for a file saved with the given text.
+     * Lines are split the same way, and each one ends with the line separator
+     * of the current OS, including the last one.
+     *
+     * @param text  the text as it was saved
+     * @return      the text as it will be read back
+     */
+    public static String reopenedText(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 16);
+
+        try (BufferedReader br = new BufferedReader(new StringReader(text))) {
+            String line = br.readLine();
+            while (line != null) {
+                sb.append(line);
+                sb.append(System.lineSeparator());
+                line = br.readLine();
+            }
+        } catch (IOException e) {
+            // Reading from a string does not fail
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads text content from a file and hands it over in chunks,
+     * so the caller never needs the whole content as a single string.
+     * Produces exactly the same text as readFile(), split into pieces.
+     * Stops with an InterruptedIOException if the calling thread is interrupted.
+     *
+     * @param file      the file to read
+     * @param consumer  receives each chunk of text, in order
+     * @throws IOException if reading the file fails
+     */
+    public static void streamFile(File file, Consumer<String> consumer) throws IOException {
+        InputStream in = openContent(file);
+
+        try (BufferedReader br = new BufferedReader(
+            new InputStreamReader(in, Charset.defaultCharset()),
+            STREAM_BUFFER_SIZE
+        )) {
             StringBuilder sb = new StringBuilder();
             String line = br.readLine();
 
@@ -38,10 +114,135 @@ public class FileService {
                 sb.append(line);
                 // Append line separator to preserve line breaks
                 sb.append(System.lineSeparator());
+
+                // Hand over a chunk once enough text has accumulated
+                if (sb.length() >= CHUNK_SIZE) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Reading interrupted");
+                    }
+                    consumer.accept(sb.toString());
+                    sb.setLength(0);
+                }
+
                 line = br.readLine();
             }
 
-            return sb.toString();
+            if (sb.length() > 0) {
+                consumer.accept(sb.toString());
+            }
         }
     }
+
+    /**
+     * Checks whether a file holds binary rather than text content.
+     * Samples the start of the file: any NUL byte, or a high share of
+     * control characters and malformed UTF-8 sequences, marks it as binary.
+     * Compressed files are judged by the start of their decompressed content.
+     *
+     * @param file  the file to inspect
+     * @return      true if the file should be shown as binary, false otherwise
+     * @throws IOException if reading the file fails or its compressed data is invalid
+     */
+    public static boolean isBinaryFile(File file) throws IOException {
+        byte[] sample = new byte[BINARY_SAMPLE_SIZE];
+        int length;
+
+        try (InputStream in = openContent(file)) {
+            length = in.readNBytes(sample, 0, sample.length);
+        }
+
+        return isBinaryContent(sample, length);
+    }
+
+    /**
+     * Opens the content of a file for reading, decompressing it
+     * if the file has a compressed extension.
+     *
+     * @param file  the file to open
+     * @return      a buffered stream of the (decompressed) content
+     * @throws IOException if the file cannot be opened or has an invalid compressed header
+     */
+    private static InputStream openContent(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file), STREAM_BUFFER_SIZE);
+        CompressionCodec codec = CodecRegistry.forFile(file);
+
+        try {
+            if (codec != null) {
+                in = codec.decompress(in);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+
+    /**
+     * Checks whether a sample of bytes looks like binary rather than text content.
+     *
+     * @param sample  the bytes at the start of the content
+     * @param length  the number of valid bytes in the sample
+     * @return        true if the content should be treated as binary, false otherwise
+     */
+    private static boolean isBinaryContent(byte[] sample, int length) {
+        int suspicious = 0;
+        int i = 0;
+
+        while (i < length) {
+            int b = sample[i] & 0xFF;
+
+            if (b == 0) {
+                return true;
+            }
+
+            if (b < 0x80) {
+                // Control characters other than common whitespace are unusual in text
+                if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1B) {
+                    suspicious++;
+                }
+                i++;
+                continue;
+            }
+
+            // Validate a multi-byte UTF-8 sequence
+            int continuation;
+            if (b >= 0xC2 && b <= 0xDF) {
+                continuation = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuation = 2;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuation = 3;
+            } else {
+                continuation = -1;
+            }
+
+            if (continuation < 0) {
+                suspicious++;
+                i++;
+                continue;
+            }
+
+            // A sequence cut off by the end of the sample is not an error
+            if (i + continuation >= length) {
+                break;
+            }
+
+            boolean valid = true;
+            for (int j = 1; j <= continuation; j++) {
+                if ((sample[i + j] & 0xC0) != 0x80) {
+                    valid = false;
+                    break;
+                }
+            }
+
+            if (valid) {
+                i += continuation + 1;
+            } else {
+                suspicious++;
+                i++;
+            }
+        }
+
+        return length > 0 && suspicious > length * BINARY_THRESHOLD;
+    }
 }
@@ -0,0 +1,41 @@
+package service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Built-in codec for gzip files.
+ * Compression is done in parallel blocks by ParallelGzipOutputStream.
+ */
+public class GzipCodec implements CompressionCodec {
+
+    /** Size of the buffer used while inflating. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public String getName() {
+        return "gzip";
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return List.of("gz");
+    }
+
+    /**
+     * Wraps a gzip stream. Files made of several concatenated gzip members,
+     * as written by ParallelGzipOutputStream or pigz, are read as one stream.
+     */
+    @Override
+    public InputStream decompress(InputStream in) throws IOException {
+        return new GZIPInputStream(in, BUFFER_SIZE);
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) {
+        return new ParallelGzipOutputStream(out);
+    }
+}
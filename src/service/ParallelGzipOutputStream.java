@@ -0,0 +1,158 @@
+package service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Output stream that gzip-compresses data in parallel, in the style of pigz.
+ * Data is cut into fixed-size blocks, each block is compressed on a worker
+ * thread as an independent gzip member, and the members are written in order.
+ * Concatenated members form a valid gzip file that any gzip reader accepts.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    /** Amount of uncompressed data per block. */
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    /** Worker threads shared by all streams. */
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread thread = new Thread(r, "gzip-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final OutputStream out;
+
+    /** Blocks being compressed, in file order */
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength = 0;
+    private boolean anyBlockSubmitted = false;
+    private boolean closed = false;
+
+    /**
+     * Constructor that wraps the target stream.
+     *
+     * @param out the stream receiving the compressed data
+     */
+    public ParallelGzipOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        while (len > 0) {
+            int chunk = Math.min(len, BLOCK_SIZE - blockLength);
+            System.arraycopy(b, off, block, blockLength, chunk);
+            blockLength += chunk;
+            off += chunk;
+            len -= chunk;
+
+            if (blockLength == BLOCK_SIZE) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Compresses the remaining data, writes all blocks, and closes the target.
+     *
+     * @throws IOException if compressing or writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            // An empty file still needs one gzip member to be valid
+            if (blockLength > 0 || !anyBlockSubmitted) {
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeOldestBlock();
+            }
+        } finally {
+            for (Future<byte[]> future : pending) {
+                future.cancel(true);
+            }
+            out.close();
+        }
+    }
+
+    /**
+     * Hands the current block to a worker and starts a new one.
+     * Waits for the oldest block first if enough blocks are already in flight,
+     * which bounds the memory used by a large save.
+     *
+     * @throws IOException if writing an earlier block fails
+     */
+    private void submitBlock() throws IOException {
+        if (pending.size() >= THREADS * 2) {
+            writeOldestBlock();
+        }
+
+        byte[] data = block;
+        int length = blockLength;
+        pending.add(WORKERS.submit(() -> compress(data, length)));
+        anyBlockSubmitted = true;
+
+        block = new byte[BLOCK_SIZE];
+        blockLength = 0;
+    }
+
+    /**
+     * Waits for the oldest block to be compressed and writes it.
+     *
+     * @throws IOException if compressing or writing fails
+     */
+    private void writeOldestBlock() throws IOException {
+        try {
+            out.write(pending.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Compression interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Compression failed", e.getCause());
+        }
+    }
+
+    /**
+     * Compresses a block into a standalone gzip member.
+     *
+     * @param data    the block buffer
+     * @param length  the number of bytes used in the buffer
+     * @return        the gzip member
+     * @throws IOException if compression fails
+     */
+    private static byte[] compress(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bos)) {
+            gzip.write(data, 0, length);
+        }
+        return bos.toByteArray();
+    }
+}
@@ -0,0 +1,292 @@
+package service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import model.SessionDocument;
+import model.SessionState;
+
+/**
+ * Service class that saves and restores the editing session.
+ * The session is a small binary index (documents, caret and scroll
+ * positions, font) plus one compressed buffer file per document with
+ * unsaved changes. Writes are incremental: the index is only rewritten
+ * when it changes, and a buffer only when its text changes.
+ */
+public class SessionService {
+
+    /** Directory holding the session index and buffers. */
+    private static final Path SESSION_DIR = Paths.get(
+        System.getProperty("user.home"),
+        ".notepad",
+        "session"
+    );
+
+    private static final Path INDEX_FILE = SESSION_DIR.resolve("session.bin");
+
+    /** Marker written at the start of the index ("NPSS"). */
+    private static final int MAGIC = 0x4E505353;
+    private static final int VERSION = 1;
+
+    /** Approximate number of characters handed over per chunk when streaming a buffer. */
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    /** Single background thread so session writes never block the UI. */
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "session-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Index bytes last written, only accessed by the writer thread */
+    private static byte[] lastWrittenIndex;
+
+    /**
+     * Loads the index of the previous session.
+     * Buffers are not read here; they are streamed when their document is activated.
+     * Documents whose file no longer exists and that have no buffer are dropped.
+     *
+     * @return the saved session, or null if there is none or it cannot be read
+     */
+    public static SessionState loadSession() {
+        if (!Files.isRegularFile(INDEX_FILE)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(INDEX_FILE))
+        )) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                return null;
+            }
+
+            String fontName = in.readUTF();
+            int fontSize = in.readInt();
+            int savedActiveIndex = in.readInt();
+            int activeIndex = -1;
+            int count = in.readInt();
+
+            List<SessionDocument> documents = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                File file = in.readBoolean() ? new File(in.readUTF()) : null;
+                SessionDocument document = new SessionDocument(id, file);
+                document.setCaretPosition(in.readInt());
+                document.setScrollPosition(in.readInt(), in.readInt());
+                document.setModified(in.readBoolean());
+                document.setBufferOnDisk(in.readBoolean());
+
+                // Skip documents that cannot be shown any more
+                boolean fileGone = file != null && !file.isFile();
+                if (fileGone && !document.isBufferOnDisk()) {
+                    continue;
+                }
+
+                if (i == savedActiveIndex) {
+                    activeIndex = documents.size();
+                }
+                documents.add(document);
+            }
+
+            return new SessionState(documents, activeIndex, fontName, fontSize);
+        } catch (IOException e) {
+            // A corrupt session is treated as missing
+            return null;
+        }
+    }
+
+    /**
+     * Saves the session in the background.
+     * The index is encoded on the calling thread, so the documents may keep
+     * changing afterwards; buffer texts are immutable strings.
+     *
+     * @param state           the session to save
+     * @param changedBuffers  unsaved texts that changed since they were last written, by document id
+     * @return                a future that completes once everything is written,
+     *                        or completes exceptionally if writing fails
+     */
+    public static CompletableFuture<Void> saveSession(SessionState state, Map<Long, String> changedBuffers) {
+        byte[] index = encodeIndex(state, changedBuffers);
+
+        // Buffers of modified documents are kept; all others are removed
+        Set<String> keep = new HashSet<>();
+        for (SessionDocument document : state.getDocuments()) {
+            if (hasBuffer(document, changedBuffers)) {
+                keep.add(bufferPath(document.getId()).getFileName().toString());
+            }
+        }
+
+        return CompletableFuture.runAsync(() -> {
+            try {
+                Files.createDirectories(SESSION_DIR);
+
+                for (Map.Entry<Long, String> buffer : changedBuffers.entrySet()) {
+                    writeBuffer(buffer.getKey(), buffer.getValue());
+                }
+
+                if (!Arrays.equals(index, lastWrittenIndex)) {
+                    writeAtomically(INDEX_FILE, out -> out.write(index));
+                    lastWrittenIndex = index;
+                }
+
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(SESSION_DIR, "buffer-*.bin")) {
+                    for (Path path : stream) {
+                        if (!keep.contains(path.getFileName().toString())) {
+                            Files.deleteIfExists(path);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Reported through the future; editing carries on regardless
+                throw new UncheckedIOException(e);
+            }
+        }, WRITER);
+    }
+
+    /**
+     * Reads the unsaved text of a document and hands it over in chunks.
+     * Stops with an InterruptedIOException if the calling thread is interrupted.
+     *
+     * @param id        the document identifier
+     * @param consumer  receives each chunk of text, in order
+     * @throws IOException if the buffer cannot be read
+     */
+    public static void streamBuffer(long id, Consumer<String> consumer) throws IOException {
+        try (Reader reader = new InputStreamReader(
+            new InflaterInputStream(new BufferedInputStream(Files.newInputStream(bufferPath(id)))),
+            StandardCharsets.UTF_8
+        )) {
+            char[] chunk = new char[CHUNK_SIZE];
+            int length;
+
+            while ((length = reader.read(chunk)) != -1) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Reading interrupted");
+                }
+                consumer.accept(new String(chunk, 0, length));
+            }
+        }
+    }
+
+    /**
+     * Encodes the session index.
+     *
+     * @param state           the session to encode
+     * @param changedBuffers  buffers about to be written, by document id
+     * @return                the encoded index
+     */
+    private static byte[] encodeIndex(SessionState state, Map<Long, String> changedBuffers) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(state.getFontName());
+            out.writeInt(state.getFontSize());
+            out.writeInt(state.getActiveIndex());
+            out.writeInt(state.getDocuments().size());
+
+            for (SessionDocument document : state.getDocuments()) {
+                out.writeLong(document.getId());
+                out.writeBoolean(document.getFile() != null);
+                if (document.getFile() != null) {
+                    out.writeUTF(document.getFile().getAbsolutePath());
+                }
+                out.writeInt(document.getCaretPosition());
+                out.writeInt(document.getScrollX());
+                out.writeInt(document.getScrollY());
+                out.writeBoolean(document.isModified());
+                out.writeBoolean(hasBuffer(document, changedBuffers));
+            }
+        } catch (IOException e) {
+            // Cannot happen: writing to memory
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Checks whether a document will have a buffer file once the pending writes finish.
+     *
+     * @param document        the document
+     * @param changedBuffers  buffers about to be written, by document id
+     * @return                true if the document's unsaved text is stored on disk
+     */
+    private static boolean hasBuffer(SessionDocument document, Map<Long, String> changedBuffers) {
+        return document.isModified() &&
+            (changedBuffers.containsKey(document.getId()) || document.isBufferOnDisk());
+    }
+
+    /**
+     * Writes the unsaved text of a document, compressed.
+     *
+     * @param id    the document identifier
+     * @param text  the unsaved text
+     * @throws IOException if writing fails
+     */
+    private static void writeBuffer(long id, String text) throws IOException {
+        writeAtomically(bufferPath(id), out -> {
+            DeflaterOutputStream deflater = new DeflaterOutputStream(out);
+            Writer writer = new OutputStreamWriter(deflater, StandardCharsets.UTF_8);
+            writer.write(text);
+            writer.flush();
+            deflater.finish();
+        });
+    }
+
+    /**
+     * Writes a file through a temporary file, so a crash never leaves it half-written.
+     *
+     * @param target  the file to write
+     * @param writer  writes the content to the given stream
+     * @throws IOException if writing fails
+     */
+    private static void writeAtomically(Path target, ContentWriter writer) throws IOException {
+        Path temp = Files.createTempFile(SESSION_DIR, "session", ".tmp");
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            writer.write(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gets the buffer file of a document.
+     *
+     * @param id  the document identifier
+     * @return    the path of its buffer file
+     */
+    private static Path bufferPath(long id) {
+        return SESSION_DIR.resolve("buffer-" + id + ".bin");
+    }
+
+    /**
+     * Writes content to an output stream.
+     */
+    private interface ContentWriter {
+        /**
+         * Writes the content.
+         *
+         * @param out  the target stream
+         * @throws IOException if writing fails
+         */
+        void write(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,322 @@
+package service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Service class that persists undo history between sessions.
+ * Each history is stored in the application cache directory, keyed by the
+ * document's path, and is only valid for the exact content it was saved with.
+ * States are delta-encoded against their successor and deflate-compressed,
+ * so a long history of small edits costs little more than the edits themselves.
+ */
+public class UndoHistoryService {
+
+    /** Directory holding one history file per document. */
+    private static final Path CACHE_DIR = Paths.get(
+        System.getProperty("user.home"),
+        ".notepad",
+        "undo"
+    );
+
+    /** Marker written at the start of every history file ("NPUH"). */
+    private static final int MAGIC = 0x4E505548;
+    private static final int VERSION = 1;
+
+    /** Maximum number of undo states kept per document. */
+    private static final int MAX_STATES = 500;
+
+    /** Maximum uncompressed size of the deltas kept per document. */
+    private static final long MAX_HISTORY_BYTES = 8L * 1024 * 1024;
+
+    /** Maximum total size of the cache directory. */
+    private static final long MAX_CACHE_BYTES = 64L * 1024 * 1024;
+
+    /** Histories older than this are discarded. */
+    private static final long MAX_AGE_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    /** Single background thread so history writes never block the UI. */
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "undo-history-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Saves the undo history of a document in the background.
+     * The saved text is given the line separators it will have when the
+     * document is reopened; that newest state is not stored, and every
+     * other state is stored as a delta.
+     *
+     * @param file       the saved document the history belongs to
+     * @param states     the undo states, oldest first
+     * @param savedText  the text the document was saved with
+     */
+    public static void saveHistory(File file, List<String> states, String savedText) {
+        WRITER.execute(() -> {
+            try {
+                writeHistory(file, states, FileService.reopenedText(savedText));
+                pruneCache();
+            } catch (IOException e) {
+                // History is a convenience; losing it must not disturb editing
+            }
+        });
+    }
+
+    /**
+     * Loads the undo history of a document.
+     * Returns an empty list if there is no history, if it has expired,
+     * or if it was saved for content different from the given text.
+     * States are rebuilt newest first, so older states beyond the limit
+     * are never decoded.
+     *
+     * @param file         the document the history belongs to
+     * @param currentText  the document content as it was opened
+     * @param maxStates    the maximum number of states to return
+     * @return             the newest undo states, oldest first
+     */
+    public static List<String> loadHistory(File file, String currentText, int maxStates) {
+        Path path = historyPath(file);
+
+        try {
+            if (!Files.exists(path)) {
+                return Collections.emptyList();
+            }
+
+            // Expired histories are removed instead of loaded
+            FileTime modified = Files.getLastModifiedTime(path);
+            if (System.currentTimeMillis() - modified.toMillis() > MAX_AGE_MILLIS) {
+                Files.deleteIfExists(path);
+                return Collections.emptyList();
+            }
+
+            try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path))
+            )) {
+                if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                    return Collections.emptyList();
+                }
+
+                DataInputStream body = new DataInputStream(
+                    new BufferedInputStream(new InflaterInputStream(in))
+                );
+
+                // The history only applies to the exact content it was saved with
+                byte[] hash = new byte[32];
+                body.readFully(hash);
+                if (!Arrays.equals(hash, hash(currentText))) {
+                    return Collections.emptyList();
+                }
+
+                // Deltas are stored newest first, each relative to the state after it
+                int count = Math.min(body.readInt(), maxStates);
+                List<String> states = new ArrayList<>(Math.max(count, 0));
+                String next = currentText;
+
+                for (int i = 0; i < count; i++) {
+                    int prefix = body.readInt();
+                    int suffix = body.readInt();
+                    int middleLength = body.readInt();
+
+                    StringBuilder sb = new StringBuilder(prefix + middleLength + suffix);
+                    sb.append(next, 0, prefix);
+                    for (int j = 0; j < middleLength; j++) {
+                        sb.append(body.readChar());
+                    }
+                    sb.append(next, next.length() - suffix, next.length());
+
+                    next = sb.toString();
+                    states.add(next);
+                }
+
+                Collections.reverse(states);
+                return states;
+            }
+        } catch (IOException | RuntimeException e) {
+            // A corrupt or truncated history is treated as missing,
+            // including counts and lengths that make no sense
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Encodes and writes a history file, replacing any previous one.
+     * The oldest states are dropped when the retention limits are exceeded.
+     *
+     * @param file         the document the history belongs to
+     * @param states       the undo states, oldest first
+     * @param currentText  the newest state, used as the base of the deltas
+     * @throws IOException if writing the history fails
+     */
+    private static void writeHistory(File file, List<String> states, String currentText)
+        throws IOException {
+        Path path = historyPath(file);
+
+        // Build deltas from the newest state backwards until a limit is reached
+        List<int[]> ranges = new ArrayList<>();
+        List<String> middles = new ArrayList<>();
+        long totalBytes = 0;
+        String next = currentText;
+
+        for (int i = states.size() - 1; i >= 0 && ranges.size() < MAX_STATES; i--) {
+            String previous = states.get(i);
+            int[] range = diff(previous, next);
+            String middle = previous.substring(range[0], previous.length() - range[1]);
+
+            totalBytes += 12 + middle.length() * 2L;
+            if (totalBytes > MAX_HISTORY_BYTES) {
+                break;
+            }
+
+            ranges.add(range);
+            middles.add(middle);
+            next = previous;
+        }
+
+        if (ranges.isEmpty()) {
+            Files.deleteIfExists(path);
+            return;
+        }
+
+        // Write to a temporary file first so a crash never leaves a partial history
+        Files.createDirectories(CACHE_DIR);
+        Path temp = Files.createTempFile(CACHE_DIR, "history", ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(temp))
+        )) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+
+            DeflaterOutputStream deflater = new DeflaterOutputStream(out);
+            DataOutputStream body = new DataOutputStream(new BufferedOutputStream(deflater));
+            body.write(hash(currentText));
+            body.writeInt(ranges.size());
+
+            for (int i = 0; i < ranges.size(); i++) {
+                String middle = middles.get(i);
+                body.writeInt(ranges.get(i)[0]);
+                body.writeInt(ranges.get(i)[1]);
+                body.writeInt(middle.length());
+                body.writeChars(middle);
+            }
+
+            body.flush();
+            deflater.finish();
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Removes expired histories and, if the cache is still too large,
+     * the least recently written ones.
+     *
+     * @throws IOException if listing the cache directory fails
+     */
+    private static void pruneCache() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(CACHE_DIR, "*.undo")) {
+            stream.forEach(files::add);
+        }
+
+        // Newest first, so the oldest files are the ones left over the limit
+        files.sort(Comparator.comparing(UndoHistoryService::lastModified).reversed());
+
+        long now = System.currentTimeMillis();
+        long totalBytes = 0;
+
+        for (Path path : files) {
+            totalBytes += Files.size(path);
+            if (now - lastModified(path) > MAX_AGE_MILLIS || totalBytes > MAX_CACHE_BYTES) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Finds the changed region between two states.
+     *
+     * @param previous  the older state
+     * @param next      the newer state
+     * @return          the lengths of the common prefix and the common suffix
+     */
+    private static int[] diff(String previous, String next) {
+        int max = Math.min(previous.length(), next.length());
+
+        int prefix = 0;
+        while (prefix < max && previous.charAt(prefix) == next.charAt(prefix)) {
+            prefix++;
+        }
+
+        // The suffix must not overlap the prefix in either string
+        int suffix = 0;
+        while (
+            suffix < max - prefix &&
+            previous.charAt(previous.length() - 1 - suffix) == next.charAt(next.length() - 1 - suffix)
+        ) {
+            suffix++;
+        }
+
+        return new int[] { prefix, suffix };
+    }
+
+    /**
+     * Gets the history file for a document, named after a hash of its path.
+     *
+     * @param file  the document
+     * @return      the path of its history file
+     */
+    private static Path historyPath(File file) {
+        StringBuilder name = new StringBuilder();
+        for (byte b : hash(file.getAbsolutePath())) {
+            name.append(String.format("%02x", b));
+        }
+        return CACHE_DIR.resolve(name + ".undo");
+    }
+
+    /**
+     * Computes the SHA-256 hash of a string's UTF-8 encoding.
+     *
+     * @param text  the text to hash
+     * @return      the 32-byte hash
+     */
+    private static byte[] hash(String text) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets the last modification time of a file, or 0 if it cannot be read.
+     *
+     * @param path  the file
+     * @return      the modification time in milliseconds
+     */
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -4,7 +4,8 @@ import java.awt.*;
 import javax.swing.*;
 
 /**
- * Represents the application's top menu bar (File, Edit, Format).
+ * Represents the application's top menu bar (File, Edit, Format, Documents, View,
+ * Collaborate).
  * This class uses a JPanel wrapper to keep layout flexible and
  * organizes all menu items and submenus for the application.
  */
@@ -13,7 +14,7 @@ public class AppMenuBar extends JPanel {
     private JMenuBar menuBar;
 
     /** Available font families offered in the Format > Font submenu. */
-    private static final String[] FONT_NAMES = {
+    static final String[] FONT_NAMES = {
         "Monospaced",
         "SansSerif",
         "Serif",
@@ -23,7 +24,7 @@ public class AppMenuBar extends JPanel {
     };
 
     /** Available font sizes offered in the Format > Font size submenu. */
-    private static final int[] FONT_SIZES = {
+    static final int[] FONT_SIZES = {
         10,
         12,
         14,
@@ -37,7 +38,9 @@ public class AppMenuBar extends JPanel {
 
     /**
      * Constructor that initializes and configures the menu bar.
-     * Creates all menus (File, Edit, Format) and their respective items.
+     * Creates all menus (File, Edit, Format, Documents, View, Collaborate) and
+     * their respective items.
+     * The Documents menu is filled in by the controller.
      */
     public AppMenuBar() {
         // Create the menu bar
@@ -48,27 +51,39 @@ public class AppMenuBar extends JPanel {
         JMenu fileMenu = new JMenu("File");
         JMenu editMenu = new JMenu("Edit");
         JMenu formatMenu = new JMenu("Format");
+        JMenu documentsMenu = new JMenu("Documents");
+        JMenu viewMenu = new JMenu("View");
+        JMenu collaborateMenu = new JMenu("Collaborate");
 
         // Add menus to the menu bar
         menuBar.add(fileMenu);
         menuBar.add(editMenu);
         menuBar.add(formatMenu);
+        menuBar.add(documentsMenu);
+        menuBar.add(viewMenu);
+        menuBar.add(collaborateMenu);
 
         // --- Populate File menu ---
         JMenuItem menuItemSave = new JMenuItem("Save");
         JMenuItem menuItemSaveAs = new JMenuItem("Save as");
         JMenuItem menuItemOpenFile = new JMenuItem("Open file");
+        JMenuItem menuItemClose = new JMenuItem("Close");
 
         fileMenu.add(menuItemSave);
         fileMenu.add(menuItemSaveAs);
         fileMenu.add(menuItemOpenFile);
+        fileMenu.add(menuItemClose);
 
         // --- Populate Edit menu ---
         JMenuItem menuItemUndo = new JMenuItem("Undo");
         JMenuItem menuItemRedo = new JMenuItem("Redo");
+        JMenuItem menuItemGoToOffset = new JMenuItem("Go to offset");
+        JMenuItem menuItemFindBytes = new JMenuItem("Find bytes");
 
         editMenu.add(menuItemUndo);
         editMenu.add(menuItemRedo);
+        editMenu.add(menuItemGoToOffset);
+        editMenu.add(menuItemFindBytes);
 
         // --- Populate Format menu with submenus ---
         JMenu fontMenu = new JMenu("Font");
@@ -89,6 +104,20 @@ public class AppMenuBar extends JPanel {
         formatMenu.add(fontSizeMenu);
         formatMenu.add(fontMenu);
 
+        // --- Populate View menu ---
+        JCheckBoxMenuItem menuItemSplitView = new JCheckBoxMenuItem("Split view");
+
+        viewMenu.add(menuItemSplitView);
+
+        // --- Populate Collaborate menu ---
+        JMenuItem menuItemHostSession = new JMenuItem("Host session");
+        JMenuItem menuItemJoinSession = new JMenuItem("Join session");
+        JMenuItem menuItemLeaveSession = new JMenuItem("Leave session");
+
+        collaborateMenu.add(menuItemHostSession);
+        collaborateMenu.add(menuItemJoinSession);
+        collaborateMenu.add(menuItemLeaveSession);
+
         // Add the menu bar to this panel
         add(menuBar, BorderLayout.NORTH);
     }
@@ -129,6 +158,33 @@ public class AppMenuBar extends JPanel {
         return this.menuBar.getMenu(2);
     }
 
+    /**
+     * Gets the Documents menu.
+     *
+     * @return the Documents menu (index 3)
+     */
+    public JMenu getDocumentsMenu() {
+        return this.menuBar.getMenu(3);
+    }
+
+    /**
+     * Gets the View menu.
+     *
+     * @return the View menu (index 4)
+     */
+    public JMenu getViewMenu() {
+        return this.menuBar.getMenu(4);
+    }
+
+    /**
+     * Gets the Collaborate menu.
+     *
+     * @return the Collaborate menu (index 5)
+     */
+    public JMenu getCollaborateMenu() {
+        return this.menuBar.getMenu(5);
+    }
+
     /**
      * Gets the Font size submenu (Format menu, index 0).
      *
@@ -0,0 +1,85 @@
+package view;
+
+import java.awt.*;
+import javax.swing.*;
+import javax.swing.plaf.basic.BasicTextAreaUI;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.View;
+
+/**
+ * Text area used by the editor views.
+ * Takes its fonts' metrics from the shared FontCache, and, with look and
+ * feels based on BasicTextAreaUI, lays out non-wrapped text with a
+ * ProgressivePlainView, so a font change repaints the visible lines at once
+ * instead of measuring the whole document first.
+ */
+public class EditorTextArea extends JTextArea {
+
+    /**
+     * Constructor that creates an empty text area with its own document.
+     */
+    public EditorTextArea() {
+        super();
+    }
+
+    /**
+     * Constructor that creates a text area showing an existing document.
+     *
+     * @param document  the document to show
+     */
+    public EditorTextArea(Document document) {
+        super(document);
+    }
+
+    /**
+     * Installs the look and feel's text area UI. Where that is the plain
+     * BasicTextAreaUI, as in Metal, it is replaced by the editor's own
+     * subclass, which only differs in the views it creates; look and feels
+     * with their own text area UI, such as Nimbus, GTK or Aqua, keep it.
+     */
+    @Override
+    public void updateUI() {
+        super.updateUI();
+        if (getUI().getClass() == BasicTextAreaUI.class) {
+            setUI(new EditorTextAreaUI());
+        }
+    }
+
+    /**
+     * Gets the metrics of a font from the shared cache,
+     * for the render context this text area paints with.
+     *
+     * @param font  the font to measure
+     * @return      the cached metrics
+     */
+    @Override
+    public FontMetrics getFontMetrics(Font font) {
+        return FontCache.getMetrics(super.getFontMetrics(font));
+    }
+
+    /**
+     * Text area UI that creates progressive views for non-wrapped text.
+     * Wrapped and bidirectional text keep the standard views.
+     */
+    private static class EditorTextAreaUI extends BasicTextAreaUI {
+
+        /**
+         * Creates the view for the root element of the document.
+         *
+         * @param elem  the root element
+         * @return      the view of the document
+         */
+        @Override
+        public View create(Element elem) {
+            // Same check as BasicTextAreaUI for documents that need bidi support
+            Object i18n = elem.getDocument().getProperty("i18n");
+            JTextArea area = (JTextArea) getComponent();
+
+            if (!area.getLineWrap() && !Boolean.TRUE.equals(i18n)) {
+                return new ProgressivePlainView(elem);
+            }
+            return super.create(elem);
+        }
+    }
+}
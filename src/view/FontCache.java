@@ -0,0 +1,275 @@
+package view;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the fonts and font metrics used by the text editor.
+ * Each (family, style, size) is created once, and measured once per font
+ * render context; switching back to a font reuses the same Font and
+ * FontMetrics objects. Metrics of monospaced fonts measure text
+ * arithmetically, as a character count times the common advance, instead
+ * of looking up every glyph.
+ */
+public class FontCache {
+
+    /** Characters whose advances must all match for a font to count as monospaced. */
+    private static final String MONOSPACE_SAMPLE = " .1iImMW";
+
+    /** Printable ASCII range, measured to load its glyph advances ahead of use. */
+    private static final String PREWARM_SAMPLE = printableAscii();
+
+    private static final Map<String, Font> FONTS = new ConcurrentHashMap<>();
+    private static final Map<MetricsKey, FontMetrics> METRICS = new ConcurrentHashMap<>();
+
+    /**
+     * Key of the metrics cache. The same font has different advances
+     * under different render contexts, for example with fractional metrics.
+     */
+    private static class MetricsKey {
+
+        private final Font font;
+        private final FontRenderContext context;
+
+        /**
+         * Constructor that creates a key.
+         *
+         * @param font     the measured font
+         * @param context  the render context it was measured with
+         */
+        MetricsKey(Font font, FontRenderContext context) {
+            this.font = font;
+            this.context = context;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof MetricsKey)) {
+                return false;
+            }
+            MetricsKey key = (MetricsKey) other;
+            return font.equals(key.font) && context.equals(key.context);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * font.hashCode() + context.hashCode();
+        }
+    }
+
+    /**
+     * Gets the font with the given family, style, and size.
+     *
+     * @param name   the font family
+     * @param style  the font style, such as Font.PLAIN
+     * @param size   the font size in points
+     * @return       the cached font
+     */
+    public static Font getFont(String name, int style, int size) {
+        return FONTS.computeIfAbsent(
+            name + "-" + style + "-" + size,
+            key -> new Font(name, style, size)
+        );
+    }
+
+    /**
+     * Gets the cached metrics matching metrics obtained from a component.
+     * The first metrics seen for a font and render context are kept,
+     * wrapped for arithmetic measuring if the font is monospaced.
+     *
+     * @param metrics  the metrics the component would use
+     * @return         the cached metrics for the same font and render context
+     */
+    public static FontMetrics getMetrics(FontMetrics metrics) {
+        return METRICS.computeIfAbsent(
+            new MetricsKey(metrics.getFont(), metrics.getFontRenderContext()),
+            key -> isMonospaced(metrics) ? new MonospacedFontMetrics(metrics) : metrics
+        );
+    }
+
+    /**
+     * Creates every font offered in the Format menu and loads its glyph
+     * advances on a background thread, so the first switch to any of them
+     * does not have to do it on the UI thread.
+     * The component's style and render context are read by the calling
+     * thread, which must be the one building the UI; the background thread
+     * only measures fonts with that context and leaves the metrics cache to
+     * the UI thread.
+     *
+     * @param component  the component the fonts are prepared for
+     * @param names      the font families to prepare
+     * @param sizes      the font sizes to prepare
+     */
+    public static void prewarm(Component component, String[] names, int[] sizes) {
+        int style = component.getFont().getStyle();
+        FontRenderContext context = component.getFontMetrics(component.getFont()).getFontRenderContext();
+
+        Thread thread = new Thread(() -> {
+            for (String name : names) {
+                for (int size : sizes) {
+                    // Glyph advances are cached per font and render context by the font system
+                    getFont(name, style, size).getStringBounds(PREWARM_SAMPLE, context);
+                }
+            }
+        }, "font-prewarm");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Builds a string of the printable ASCII characters.
+     *
+     * @return the characters from space to tilde
+     */
+    private static String printableAscii() {
+        StringBuilder sb = new StringBuilder();
+        for (char c = ' '; c < 0x7F; c++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Checks whether all sample characters of a font have the same advance.
+     *
+     * @param metrics  the metrics of the font
+     * @return         true if the font is monospaced, false otherwise
+     */
+    private static boolean isMonospaced(FontMetrics metrics) {
+        int advance = metrics.charWidth(MONOSPACE_SAMPLE.charAt(0));
+        if (advance <= 0) {
+            return false;
+        }
+
+        for (int i = 1; i < MONOSPACE_SAMPLE.length(); i++) {
+            if (metrics.charWidth(MONOSPACE_SAMPLE.charAt(i)) != advance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Metrics of a monospaced font that measure text arithmetically.
+     * Only Latin characters are assumed to share the common advance;
+     * text containing anything else, such as wide CJK characters or
+     * control characters, is measured by the underlying metrics.
+     */
+    private static class MonospacedFontMetrics extends FontMetrics {
+
+        /** Last character of the Latin blocks, which share the common advance */
+        private static final char LAST_FIXED_CHAR = '\u024F';
+
+        private final FontMetrics metrics;
+        private final int advance;
+
+        /**
+         * Constructor that wraps the measured metrics of a monospaced font.
+         *
+         * @param metrics  the underlying metrics
+         */
+        MonospacedFontMetrics(FontMetrics metrics) {
+            super(metrics.getFont());
+            this.metrics = metrics;
+            this.advance = metrics.charWidth('m');
+        }
+
+        /**
+         * Checks whether a character has the common advance.
+         *
+         * @param c  the character
+         * @return   true if its width is the common advance
+         */
+        private static boolean isFixed(int c) {
+            return c >= ' ' && c <= LAST_FIXED_CHAR && c != 0x7F;
+        }
+
+        @Override
+        public int charWidth(char c) {
+            return isFixed(c) ? advance : metrics.charWidth(c);
+        }
+
+        @Override
+        public int charWidth(int codePoint) {
+            return isFixed(codePoint) ? advance : metrics.charWidth(codePoint);
+        }
+
+        @Override
+        public int charsWidth(char[] data, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (!isFixed(data[i])) {
+                    return metrics.charsWidth(data, off, len);
+                }
+            }
+            return len * advance;
+        }
+
+        @Override
+        public int stringWidth(String str) {
+            for (int i = 0; i < str.length(); i++) {
+                if (!isFixed(str.charAt(i))) {
+                    return metrics.stringWidth(str);
+                }
+            }
+            return str.length() * advance;
+        }
+
+        @Override
+        public int bytesWidth(byte[] data, int off, int len) {
+            return metrics.bytesWidth(data, off, len);
+        }
+
+        @Override
+        public int[] getWidths() {
+            return metrics.getWidths();
+        }
+
+        @Override
+        public FontRenderContext getFontRenderContext() {
+            return metrics.getFontRenderContext();
+        }
+
+        @Override
+        public int getAscent() {
+            return metrics.getAscent();
+        }
+
+        @Override
+        public int getDescent() {
+            return metrics.getDescent();
+        }
+
+        @Override
+        public int getLeading() {
+            return metrics.getLeading();
+        }
+
+        @Override
+        public int getHeight() {
+            return metrics.getHeight();
+        }
+
+        @Override
+        public int getMaxAscent() {
+            return metrics.getMaxAscent();
+        }
+
+        @Override
+        public int getMaxDescent() {
+            return metrics.getMaxDescent();
+        }
+
+        @Override
+        public int getMaxAdvance() {
+            return metrics.getMaxAdvance();
+        }
+
+        @Override
+        public boolean hasUniformLineMetrics() {
+            return metrics.hasUniformLineMetrics();
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package view;
+
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import javax.swing.*;
+import model.BinaryDocument;
+
+/**
+ * Panel that displays a binary document as offset, hex, and ASCII columns.
+ * Only the rows currently visible are read and painted, so the cost of
+ * scrolling does not depend on the size of the file.
+ */
+public class HexViewPanel extends JPanel {
+
+    /** Number of bytes shown on each row. */
+    public static final int BYTES_PER_ROW = 16;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /** Background color of highlighted bytes. */
+    private static final Color HIGHLIGHT_COLOR = new Color(0xFF, 0xE0, 0x80);
+
+    /** Largest scroll bar range; beyond it, each scroll bar unit covers several rows. */
+    private static final int MAX_SCROLL_UNITS = 1 << 30;
+
+    private BinaryDocument document;
+    private JScrollBar scrollBar;
+    private HexCanvas canvas;
+
+    /** Index of the top visible row */
+    private long topRow = 0;
+    /** Number of rows per scroll bar unit, 1 unless the file has too many rows for an int */
+    private long rowsPerUnit = 1;
+    /** True while the scroll bar is moved to follow topRow */
+    private boolean syncingScrollBar = false;
+
+    /** Start offset and length of the highlighted byte range */
+    private long highlightOffset = -1;
+    private int highlightLength = 0;
+
+    /**
+     * Constructor that initializes the hex view panel.
+     * Uses a standalone scroll bar measured in rows instead of a JScrollPane,
+     * since the pixel height of a large file does not fit in an int. The
+     * top row is kept as a long, and the scroll bar only mirrors it.
+     */
+    public HexViewPanel() {
+        setLayout(new BorderLayout());
+
+        // Create the painting surface and the row-based scroll bar
+        this.canvas = new HexCanvas();
+        this.scrollBar = new JScrollBar(JScrollBar.VERTICAL);
+        scrollBar.addAdjustmentListener(e -> {
+            // Dragging the scroll bar moves to the first row of the chosen unit
+            if (!syncingScrollBar && e.getValue() != topRow / rowsPerUnit) {
+                topRow = Math.min(e.getValue() * rowsPerUnit, maxTopRow());
+                canvas.repaint();
+            }
+        });
+
+        add(canvas, BorderLayout.CENTER);
+        add(scrollBar, BorderLayout.EAST);
+
+        // Scroll with the mouse wheel, three rows per notch
+        canvas.addMouseWheelListener(
+            e -> scrollToRow(topRow + e.getWheelRotation() * 3L)
+        );
+
+        // Keep the scroll bar extent in sync with the number of visible rows
+        canvas.addComponentListener(
+            new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) {
+                    updateScrollBar();
+                }
+            }
+        );
+
+        installKeyBindings();
+    }
+
+    /**
+     * Sets the document to display and scrolls back to its start.
+     *
+     * @param document the binary document, or null to clear the view
+     */
+    public void setDocument(BinaryDocument document) {
+        this.document = document;
+        this.highlightOffset = -1;
+        this.highlightLength = 0;
+        this.topRow = 0;
+        updateScrollBar();
+    }
+
+    /**
+     * Gets the document currently displayed.
+     *
+     * @return the binary document, or null if none is displayed
+     */
+    public BinaryDocument getDocument() {
+        return this.document;
+    }
+
+    /**
+     * Gets the offset of the first byte on the top visible row.
+     *
+     * @return the offset of the top row
+     */
+    public long getTopOffset() {
+        return topRow * BYTES_PER_ROW;
+    }
+
+    /**
+     * Gets the offset of the highlighted range.
+     *
+     * @return the highlighted offset, or -1 if nothing is highlighted
+     */
+    public long getHighlightOffset() {
+        return this.highlightOffset;
+    }
+
+    /**
+     * Highlights a range of bytes and scrolls it into view.
+     *
+     * @param offset  the offset of the first byte to highlight
+     * @param length  the number of bytes to highlight
+     */
+    public void highlight(long offset, int length) {
+        this.highlightOffset = offset;
+        this.highlightLength = length;
+        scrollToOffset(offset);
+        canvas.repaint();
+    }
+
+    /**
+     * Scrolls so that the row containing the given offset is visible.
+     * Rows already on screen are left in place.
+     *
+     * @param offset the offset to bring into view
+     */
+    public void scrollToOffset(long offset) {
+        long row = offset / BYTES_PER_ROW;
+
+        if (row < topRow || row >= topRow + visibleRows()) {
+            scrollToRow(row);
+        }
+    }
+
+    /**
+     * Scrolls so that the given row is at the top, as far as the document allows.
+     *
+     * @param row the index of the row to show at the top
+     */
+    private void scrollToRow(long row) {
+        topRow = Math.max(0, Math.min(row, maxTopRow()));
+        syncScrollBar();
+        canvas.repaint();
+    }
+
+    /**
+     * Gets the number of rows in the document.
+     *
+     * @return the number of rows, including a partial last row
+     */
+    private long totalRows() {
+        return document == null ? 0 : (document.length() + BYTES_PER_ROW - 1) / BYTES_PER_ROW;
+    }
+
+    /**
+     * Gets the number of rows scrolled by a page.
+     *
+     * @return the number of fully visible rows, at least 1
+     */
+    private int visibleRows() {
+        return Math.max(1, canvas.getVisibleRowCount() - 1);
+    }
+
+    /**
+     * Gets the last row that can be at the top, with the last page filled.
+     *
+     * @return the index of the row
+     */
+    private long maxTopRow() {
+        return Math.max(0, totalRows() - visibleRows());
+    }
+
+    /**
+     * Updates the scroll bar range from the document size and canvas height.
+     * Files with more rows than fit in an int are scaled down to the scroll bar.
+     */
+    private void updateScrollBar() {
+        long rows = totalRows();
+        int visibleRows = visibleRows();
+
+        rowsPerUnit = Math.max(1, (rows + MAX_SCROLL_UNITS - 1) / MAX_SCROLL_UNITS);
+        topRow = Math.min(topRow, maxTopRow());
+
+        syncScrollBar();
+        scrollBar.setUnitIncrement(1);
+        scrollBar.setBlockIncrement((int) Math.max(1, visibleRows / rowsPerUnit));
+        canvas.repaint();
+    }
+
+    /**
+     * Moves the scroll bar to the unit holding the top row.
+     */
+    private void syncScrollBar() {
+        int units = (int) ((totalRows() + rowsPerUnit - 1) / rowsPerUnit);
+        int visibleUnits = (int) Math.max(1, visibleRows() / rowsPerUnit);
+
+        syncingScrollBar = true;
+        try {
+            scrollBar.setValues((int) (topRow / rowsPerUnit), visibleUnits, 0, Math.max(units, visibleUnits));
+        } finally {
+            syncingScrollBar = false;
+        }
+    }
+
+    /**
+     * Registers keyboard navigation: arrows, page up/down, and Ctrl+Home/End.
+     */
+    private void installKeyBindings() {
+        canvas.setFocusable(true);
+        InputMap inputMap = canvas.getInputMap(JComponent.WHEN_FOCUSED);
+        ActionMap actionMap = canvas.getActionMap();
+
+        bindScroll(inputMap, actionMap, KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "rowUp", -1, false);
+        bindScroll(inputMap, actionMap, KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "rowDown", 1, false);
+        bindScroll(inputMap, actionMap, KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_UP, 0), "pageUp", -1, true);
+        bindScroll(inputMap, actionMap, KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_DOWN, 0), "pageDown", 1, true);
+
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_HOME, InputEvent.CTRL_DOWN_MASK), "start");
+        actionMap.put("start", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                scrollToRow(0);
+            }
+        });
+
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_END, InputEvent.CTRL_DOWN_MASK), "end");
+        actionMap.put("end", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                scrollToRow(maxTopRow());
+            }
+        });
+
+        // Focus the canvas when clicked so the key bindings apply
+        canvas.addMouseListener(
+            new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    canvas.requestFocusInWindow();
+                }
+            }
+        );
+    }
+
+    /**
+     * Binds a key stroke to a scroll by rows or pages.
+     *
+     * @param inputMap   the input map to register the key stroke in
+     * @param actionMap  the action map to register the action in
+     * @param keyStroke  the key stroke to bind
+     * @param name       the action name
+     * @param direction  -1 to scroll up, 1 to scroll down
+     * @param byPage     true to scroll by a page, false to scroll by a row
+     */
+    private void bindScroll(
+        InputMap inputMap,
+        ActionMap actionMap,
+        KeyStroke keyStroke,
+        String name,
+        int direction,
+        boolean byPage
+    ) {
+        inputMap.put(keyStroke, name);
+        actionMap.put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                int step = byPage ? visibleRows() : 1;
+                scrollToRow(topRow + direction * step);
+            }
+        });
+    }
+
+    /**
+     * Component that paints the visible rows of the document.
+     */
+    private class HexCanvas extends JComponent {
+
+        /** Reusable buffer holding the bytes of the visible rows */
+        private byte[] rowBytes = new byte[0];
+
+        /**
+         * Constructor that configures the canvas font and colors.
+         */
+        HexCanvas() {
+            setFont(new Font("Monospaced", Font.PLAIN, 13));
+            setBackground(Color.WHITE);
+            setOpaque(true);
+        }
+
+        /**
+         * Gets the number of rows that fit in the current height.
+         *
+         * @return the number of visible rows, including a partial last row
+         */
+        int getVisibleRowCount() {
+            int lineHeight = getFontMetrics(getFont()).getHeight();
+            return getHeight() / lineHeight + 1;
+        }
+
+        /**
+         * Paints the offset, hex, and ASCII columns for the visible rows.
+         *
+         * @param g the graphics context
+         */
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+
+            if (document == null) {
+                return;
+            }
+
+            FontMetrics metrics = g.getFontMetrics(getFont());
+            int lineHeight = metrics.getHeight();
+            int charWidth = metrics.charWidth('0');
+            int rows = getVisibleRowCount();
+
+            // Use wider offsets only for files beyond 4 GB
+            int offsetDigits = document.length() > 0xFFFFFFFFL ? 10 : 8;
+            int hexColumn = (offsetDigits + 2) * charWidth;
+            int asciiColumn = hexColumn + (BYTES_PER_ROW * 3 + 1) * charWidth;
+
+            // Read only the bytes of the rows on screen
+            long topOffset = getTopOffset();
+            if (rowBytes.length < rows * BYTES_PER_ROW) {
+                rowBytes = new byte[rows * BYTES_PER_ROW];
+            }
+            int count = document.read(topOffset, rowBytes, 0, rows * BYTES_PER_ROW);
+
+            char[] line = new char[BYTES_PER_ROW * 3];
+            char[] ascii = new char[BYTES_PER_ROW];
+
+            for (int row = 0; row * BYTES_PER_ROW < count; row++) {
+                int y = row * lineHeight + metrics.getAscent();
+                long rowOffset = topOffset + (long) row * BYTES_PER_ROW;
+                int rowCount = Math.min(BYTES_PER_ROW, count - row * BYTES_PER_ROW);
+
+                // Highlight bytes that fall within the selected range
+                g.setColor(HIGHLIGHT_COLOR);
+                for (int i = 0; i < rowCount; i++) {
+                    long offset = rowOffset + i;
+                    if (offset >= highlightOffset && offset < highlightOffset + highlightLength) {
+                        g.fillRect(hexColumn + i * 3 * charWidth, row * lineHeight, 2 * charWidth, lineHeight);
+                        g.fillRect(asciiColumn + i * charWidth, row * lineHeight, charWidth, lineHeight);
+                    }
+                }
+
+                // Offset column
+                g.setColor(Color.GRAY);
+                g.drawString(toHex(rowOffset, offsetDigits), 0, y);
+
+                // Hex and ASCII columns
+                for (int i = 0; i < BYTES_PER_ROW; i++) {
+                    if (i < rowCount) {
+                        int b = rowBytes[row * BYTES_PER_ROW + i] & 0xFF;
+                        line[i * 3] = HEX_DIGITS[b >> 4];
+                        line[i * 3 + 1] = HEX_DIGITS[b & 0xF];
+                        ascii[i] = b >= 0x20 && b < 0x7F ? (char) b : '.';
+                    } else {
+                        line[i * 3] = ' ';
+                        line[i * 3 + 1] = ' ';
+                        ascii[i] = ' ';
+                    }
+                    line[i * 3 + 2] = ' ';
+                }
+
+                g.setColor(Color.BLACK);
+                g.drawChars(line, 0, line.length, hexColumn, y);
+                g.drawChars(ascii, 0, rowCount, asciiColumn, y);
+            }
+        }
+
+        /**
+         * Formats an offset as a zero-padded hexadecimal string.
+         *
+         * @param value   the value to format
+         * @param digits  the number of digits to produce
+         * @return        the formatted string
+         */
+        private String toHex(long value, int digits) {
+            char[] chars = new char[digits];
+            for (int i = digits - 1; i >= 0; i--) {
+                chars[i] = HEX_DIGITS[(int) (value & 0xF)];
+                value >>>= 4;
+            }
+            return new String(chars);
+        }
+    }
+}
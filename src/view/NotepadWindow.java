@@ -5,7 +5,9 @@ import java.awt.*;
 
 /**
  * Main application window for the Notepad.
- * Creates and arranges the editor panel and the top menu bar.
+ * Creates and arranges the editor panel, the hex view, the top menu bar,
+ * and the status bar.
+ * The editor panel and the hex view share the center area, one at a time.
  * This is the primary view component in the MVC architecture.
  */
 public class NotepadWindow extends JFrame {
@@ -13,8 +15,15 @@ public class NotepadWindow extends JFrame {
     private static final int HEIGHT = 400;
     private static final int WIDTH = 600;
 
+    /** Card names used to switch the center area between views */
+    private static final String TEXT_CARD = "text";
+    private static final String HEX_CARD = "hex";
+
     private TextEditorPanel textEditorPanel;
+    private HexViewPanel hexViewPanel;
     private AppMenuBar appMenuBar;
+    private StatusBar statusBar;
+    private JPanel centerPanel;
 
     /**
      * Constructor that initializes and displays the main window.
@@ -28,11 +37,22 @@ public class NotepadWindow extends JFrame {
 
         // Create UI components
         this.textEditorPanel = new TextEditorPanel();
+        this.hexViewPanel = new HexViewPanel();
         this.appMenuBar = new AppMenuBar();
+        this.statusBar = new StatusBar();
+
+        // Stack the text editor and the hex view in the center area
+        this.centerPanel = new JPanel(new CardLayout());
+        centerPanel.add(textEditorPanel, TEXT_CARD);
+        centerPanel.add(hexViewPanel, HEX_CARD);
 
         // Add components to the window
-        add(textEditorPanel, BorderLayout.CENTER);  // Text editor in the center
+        add(centerPanel, BorderLayout.CENTER);      // Text editor in the center
         add(appMenuBar, BorderLayout.NORTH);        // Menu bar at the top
+        add(statusBar, BorderLayout.SOUTH);         // Status bar at the bottom
+
+        // Prepare the fonts of the Format menu so switching to them is quick
+        FontCache.prewarm(textEditorPanel.getTextArea(), AppMenuBar.FONT_NAMES, AppMenuBar.FONT_SIZES);
 
         // Configure window settings
         setSize(WIDTH, HEIGHT);
@@ -50,6 +70,29 @@ public class NotepadWindow extends JFrame {
         return this.textEditorPanel;
     }
 
+    /**
+     * Gets the hex view panel component.
+     *
+     * @return the HexViewPanel used to display binary files
+     */
+    public HexViewPanel getHexViewPanel() {
+        return this.hexViewPanel;
+    }
+
+    /**
+     * Shows the text editor in the center area.
+     */
+    public void showTextEditor() {
+        ((CardLayout) centerPanel.getLayout()).show(centerPanel, TEXT_CARD);
+    }
+
+    /**
+     * Shows the hex view in the center area.
+     */
+    public void showHexView() {
+        ((CardLayout) centerPanel.getLayout()).show(centerPanel, HEX_CARD);
+    }
+
     /**
      * Gets the application menu bar component.
      *
@@ -58,5 +101,13 @@ public class NotepadWindow extends JFrame {
     public AppMenuBar getAppMenuBar() {
         return this.appMenuBar;
     }
-}
 
+    /**
+     * Gets the status bar component.
+     *
+     * @return the StatusBar along the bottom of the window
+     */
+    public StatusBar getStatusBar() {
+        return this.statusBar;
+    }
+}
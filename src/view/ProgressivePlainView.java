@@ -0,0 +1,433 @@
+package view;
+
+import java.awt.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.*;
+
+/**
+ * View of non-wrapped text that measures lines progressively.
+ * PlainView searches every line for the widest one whenever the font
+ * changes, which freezes the UI thread on large documents. This view
+ * measures only the lines in the viewport right away, so the new font is
+ * painted immediately, and finds the widest line of the whole document on
+ * a background thread, widening the view once it is known. The widest
+ * line is tracked here rather than by PlainView, so that removing text
+ * from it restarts the background measurement instead of searching every
+ * line on the UI thread.
+ */
+class ProgressivePlainView extends PlainView {
+
+    /** Number of lines measured per read lock, so edits are never held up for long. */
+    private static final int MEASURE_CHUNK_LINES = 10_000;
+
+    /** Number of lines measured up front while the viewport size is still unknown. */
+    private static final int INITIAL_LINES = 200;
+
+    /** Single background thread shared by all views. */
+    private static final ExecutorService MEASURER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "line-measurer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Font the lines were last measured with, or null before the first measurement */
+    private volatile Font measuredFont;
+
+    /** Incremented whenever a background measurement starts; older ones give up */
+    private volatile int measurement = 0;
+
+    /** While true, getElement() exposes only the visible lines to PlainView */
+    private boolean visibleLinesOnly = false;
+    private int firstVisibleLine;
+    private int visibleLineCount;
+
+    /** Widest line known so far, or null if the document has not been measured */
+    private Element widestLine;
+
+    /**
+     * Constructor that creates a view of the given lines.
+     *
+     * @param elem  the root element of the document
+     */
+    ProgressivePlainView(Element elem) {
+        super(elem);
+    }
+
+    /**
+     * Updates the font metrics. After a font change, PlainView only gets to
+     * see the visible lines, and the remaining lines are measured in the background.
+     */
+    @Override
+    protected void updateMetrics() {
+        Font font = getContainer().getFont();
+
+        if (font == measuredFont) {
+            super.updateMetrics();
+            return;
+        }
+
+        measuredFont = font;
+        findVisibleLines(font);
+
+        visibleLinesOnly = true;
+        try {
+            super.updateMetrics();
+        } finally {
+            visibleLinesOnly = false;
+        }
+
+        widestLine = widestVisibleLine();
+        measureInBackground();
+    }
+
+    /**
+     * Updates the view after the document changed. Same as PlainView, except
+     * that when text is removed from the widest line, or the line itself is
+     * removed, the background measurement is restarted instead of searching
+     * every line on the UI thread.
+     *
+     * @param changes  the change information from the document
+     * @param a        the current allocation of the view
+     * @param f        the factory to use to rebuild if the view has children
+     */
+    @Override
+    protected void updateDamage(DocumentEvent changes, Shape a, ViewFactory f) {
+        Component host = getContainer();
+        updateMetrics();
+        Element root = getElement();
+        DocumentEvent.ElementChange change = changes.getChange(root);
+
+        Element[] added = change != null ? change.getChildrenAdded() : null;
+        Element[] removed = change != null ? change.getChildrenRemoved() : null;
+
+        if ((added != null && added.length > 0) || (removed != null && removed.length > 0)) {
+            // Lines were added or removed
+            boolean widestRemoved = false;
+            if (removed != null) {
+                for (Element line : removed) {
+                    widestRemoved |= line == widestLine;
+                }
+            }
+
+            if (widestRemoved) {
+                // Use the lines on screen until the whole document is measured again
+                findVisibleLines(measuredFont);
+                widestLine = widestVisibleLine();
+                measureInBackground();
+            }
+            if (added != null) {
+                for (Element line : added) {
+                    widenTo(line);
+                }
+            }
+
+            preferenceChanged(null, true, true);
+            host.repaint();
+            return;
+        }
+
+        int index = root.getElementIndex(changes.getOffset());
+        Element line = root.getElement(index);
+        damageLineRange(index, index, a, host);
+
+        if (changes.getType() == DocumentEvent.EventType.INSERT) {
+            if (line == widestLine || widenTo(line)) {
+                preferenceChanged(null, true, false);
+            }
+        } else if (changes.getType() == DocumentEvent.EventType.REMOVE && line == widestLine) {
+            // The widest line got shorter, so another line may now be wider
+            measureInBackground();
+            preferenceChanged(null, true, false);
+        }
+    }
+
+    /**
+     * Gets the element this view represents, restricted to the visible
+     * lines while PlainView searches for the widest line after a font change.
+     *
+     * @return the root element, or the visible part of it
+     */
+    @Override
+    public Element getElement() {
+        Element root = super.getElement();
+        return visibleLinesOnly ? new LineRange(root, firstVisibleLine, visibleLineCount) : root;
+    }
+
+    /**
+     * Gets the preferred span. Across, this is the width of the widest line
+     * known so far, which becomes the widest line of the whole document once
+     * the background measurement has found it.
+     *
+     * @param axis  View.X_AXIS or View.Y_AXIS
+     * @return      the preferred span along the axis
+     */
+    @Override
+    public float getPreferredSpan(int axis) {
+        if (axis != View.X_AXIS) {
+            return super.getPreferredSpan(axis);
+        }
+        updateMetrics();
+        return isLine(widestLine) ? lineWidth(widestLine, metrics, this) : 0;
+    }
+
+    /**
+     * Starts measuring the whole document in the background, abandoning
+     * any measurement still running.
+     */
+    private void measureInBackground() {
+        measurement++;
+        MEASURER.execute(new LineMeasurer(measurement, metrics));
+    }
+
+    /**
+     * Finds the widest of the lines shown in the viewport.
+     *
+     * @return the widest visible line, or null if there are none
+     */
+    private Element widestVisibleLine() {
+        Element root = super.getElement();
+        Element widest = null;
+        int widestWidth = -1;
+
+        for (int i = firstVisibleLine; i < firstVisibleLine + visibleLineCount; i++) {
+            Element line = root.getElement(i);
+            int width = lineWidth(line, metrics, this);
+            if (width > widestWidth) {
+                widestWidth = width;
+                widest = line;
+            }
+        }
+        return widest;
+    }
+
+    /**
+     * Makes the given line the widest line if it is wider than the current one.
+     *
+     * @param line  the line to compare
+     * @return      true if the line became the widest line, false otherwise
+     */
+    private boolean widenTo(Element line) {
+        if (isLine(widestLine) && lineWidth(line, metrics, this) <= lineWidth(widestLine, metrics, this)) {
+            return false;
+        }
+        widestLine = line;
+        return true;
+    }
+
+    /**
+     * Checks whether an element is still one of the lines of the document.
+     *
+     * @param line  the element to check, may be null
+     * @return      true if the document still holds the line, false otherwise
+     */
+    private boolean isLine(Element line) {
+        if (line == null) {
+            return false;
+        }
+        Element root = super.getElement();
+        return root.getElement(root.getElementIndex(line.getStartOffset())) == line;
+    }
+
+    /**
+     * Determines the range of lines shown in the host's viewport with the given font.
+     *
+     * @param font  the font the lines will be painted with
+     */
+    private void findVisibleLines(Font font) {
+        Component host = getContainer();
+        int lineCount = super.getElement().getElementCount();
+        int lineHeight = Math.max(1, host.getFontMetrics(font).getHeight());
+        Rectangle visible = ((JComponent) host).getVisibleRect();
+
+        if (visible.height == 0) {
+            firstVisibleLine = 0;
+            visibleLineCount = Math.min(lineCount, INITIAL_LINES);
+            return;
+        }
+
+        // One extra line on each side covers partially visible lines
+        visibleLineCount = Math.min(lineCount, visible.height / lineHeight + 2);
+        firstVisibleLine = Math.min(Math.max(0, visible.y / lineHeight - 1), lineCount - visibleLineCount);
+    }
+
+    /**
+     * Measures the width of a line.
+     *
+     * @param line      the line element
+     * @param metrics   the metrics of the font
+     * @param expander  expands tabs in the line
+     * @return          the width in pixels
+     */
+    private static int lineWidth(Element line, FontMetrics metrics, TabExpander expander) {
+        int p0 = line.getStartOffset();
+        int p1 = line.getEndOffset();
+        Segment segment = new Segment();
+
+        try {
+            line.getDocument().getText(p0, p1 - p0, segment);
+        } catch (BadLocationException e) {
+            // The line was removed while it was being measured
+            return 0;
+        }
+        return (int) Utilities.getTabbedTextWidth(segment, metrics, 0f, expander, p0);
+    }
+
+    /**
+     * Background task that finds the widest line of the document.
+     * Lines are read in chunks under the document's read lock; the task
+     * gives up as soon as the view is replaced or another measurement starts.
+     */
+    private class LineMeasurer implements Runnable {
+
+        private final int id;
+        private final FontMetrics fontMetrics;
+        private final TabExpander expander;
+
+        private int nextLine = 0;
+        private int widestWidth = -1;
+        private Element widest;
+        private boolean done = false;
+
+        /**
+         * Constructor that prepares a measurement with the given font metrics.
+         *
+         * @param id           the number of the measurement
+         * @param fontMetrics  the metrics of the font to measure with
+         */
+        LineMeasurer(int id, FontMetrics fontMetrics) {
+            this.id = id;
+            this.fontMetrics = fontMetrics;
+
+            // Tab stops as PlainView places them, relative to the start of the line
+            float tabSize = getTabSize() * fontMetrics.charWidth('m');
+            this.expander = (x, tabOffset) ->
+                tabSize == 0 ? x : ((int) (x / tabSize) + 1) * tabSize;
+        }
+
+        /**
+         * Measures the document chunk by chunk, then hands the widest line to the view.
+         * Lines edited meanwhile have been compared on the UI thread already,
+         * so the result only replaces the view's widest line if it is wider.
+         */
+        @Override
+        public void run() {
+            Document document = getDocument();
+
+            while (!done) {
+                if (measurement != id || getContainer() == null) {
+                    return;
+                }
+                document.render(this::measureChunk);
+            }
+
+            SwingUtilities.invokeLater(() -> {
+                if (measurement != id || getContainer() == null) {
+                    return;
+                }
+                if (isLine(widest)) {
+                    widenTo(widest);
+                } else if (!isLine(widestLine)) {
+                    // Both lines were removed while measuring, so start over
+                    measureInBackground();
+                }
+                preferenceChanged(null, true, false);
+            });
+        }
+
+        /**
+         * Measures the next chunk of lines. Called with the read lock held.
+         */
+        private void measureChunk() {
+            Element root = getDocument().getDefaultRootElement();
+            int end = Math.min(root.getElementCount(), nextLine + MEASURE_CHUNK_LINES);
+
+            for (; nextLine < end; nextLine++) {
+                Element line = root.getElement(nextLine);
+                int width = lineWidth(line, fontMetrics, expander);
+                if (width > widestWidth) {
+                    widestWidth = width;
+                    widest = line;
+                }
+            }
+
+            done = nextLine >= root.getElementCount();
+        }
+    }
+
+    /**
+     * Element exposing a range of the lines of a root element as its children.
+     */
+    private static class LineRange implements Element {
+
+        private final Element root;
+        private final int first;
+        private final int count;
+
+        /**
+         * Constructor that creates a range of lines.
+         *
+         * @param root   the root element holding all lines
+         * @param first  the index of the first line in the range
+         * @param count  the number of lines in the range
+         */
+        LineRange(Element root, int first, int count) {
+            this.root = root;
+            this.first = first;
+            this.count = count;
+        }
+
+        @Override
+        public Document getDocument() {
+            return root.getDocument();
+        }
+
+        @Override
+        public Element getParentElement() {
+            return root.getParentElement();
+        }
+
+        @Override
+        public String getName() {
+            return root.getName();
+        }
+
+        @Override
+        public AttributeSet getAttributes() {
+            return root.getAttributes();
+        }
+
+        @Override
+        public int getStartOffset() {
+            return root.getStartOffset();
+        }
+
+        @Override
+        public int getEndOffset() {
+            return root.getEndOffset();
+        }
+
+        @Override
+        public int getElementIndex(int offset) {
+            return Math.min(Math.max(0, root.getElementIndex(offset) - first), count - 1);
+        }
+
+        @Override
+        public int getElementCount() {
+            return count;
+        }
+
+        @Override
+        public Element getElement(int index) {
+            return root.getElement(first + index);
+        }
+
+        @Override
+        public boolean isLeaf() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package view;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Status bar shown along the bottom of the main window.
+ * Displays a single line of text describing the editor's current state.
+ */
+public class StatusBar extends JPanel {
+
+    private JLabel statusLabel;
+
+    /**
+     * Constructor that initializes an empty status bar.
+     */
+    public StatusBar() {
+        setLayout(new BorderLayout());
+        setBorder(BorderFactory.createEmptyBorder(2, 6, 2, 6));
+
+        // A single space keeps the bar at its normal height while empty
+        this.statusLabel = new JLabel(" ");
+        add(statusLabel, BorderLayout.CENTER);
+    }
+
+    /**
+     * Sets the text shown in the status bar.
+     *
+     * @param text the status text, or an empty string to clear it
+     */
+    public void setStatus(String text) {
+        statusLabel.setText(text == null || text.isEmpty() ? " " : text);
+    }
+}
@@ -1,16 +1,28 @@
 package view;
 
 import javax.swing.*;
+import javax.swing.text.PlainDocument;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Panel containing the main text editor area.
  * Uses a JTextArea wrapped inside a JScrollPane to provide
  * scrolling functionality and text editing capabilities.
+ * The panel can be split into two views of the same document: both text
+ * areas share one Document, so the text is never duplicated, while each
+ * view keeps its own caret and scroll position.
  */
 public class TextEditorPanel extends JPanel {
 
     private JTextArea textArea;
+    private JScrollPane scrollPane;
+
+    /** Second view of the document, or null while the panel is not split */
+    private JTextArea secondaryTextArea;
+    private JScrollPane secondaryScrollPane;
+    private JSplitPane splitPane;
 
     /**
      * Constructor that initializes the text editor panel.
@@ -20,12 +32,12 @@ public class TextEditorPanel extends JPanel {
         setLayout(new BorderLayout());
 
         // Create the text area
-        this.textArea = new JTextArea();
+        this.textArea = new EditorTextArea();
         textArea.setLineWrap(true);       // Enable automatic line wrapping
         textArea.setWrapStyleWord(true);  // Wrap by word boundaries, not mid-word
 
         // Create scroll pane and attach the text area
-        JScrollPane scrollPane = new JScrollPane(textArea);
+        this.scrollPane = new JScrollPane(textArea);
 
         // Configure scrollbar policies
         scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
@@ -44,5 +56,134 @@ public class TextEditorPanel extends JPanel {
     public JTextArea getTextArea() {
         return this.textArea;
     }
-}
 
+    /**
+     * Gets the text area of the second view.
+     *
+     * @return the second JTextArea, or null if the panel is not split
+     */
+    public JTextArea getSecondaryTextArea() {
+        return this.secondaryTextArea;
+    }
+
+    /**
+     * Gets the text areas of all views.
+     *
+     * @return the main text area, followed by the second one if the panel is split
+     */
+    public List<JTextArea> getTextAreas() {
+        List<JTextArea> textAreas = new ArrayList<>();
+        textAreas.add(textArea);
+        if (secondaryTextArea != null) {
+            textAreas.add(secondaryTextArea);
+        }
+        return textAreas;
+    }
+
+    /**
+     * Checks whether the panel is split into two views.
+     *
+     * @return true if split, false otherwise
+     */
+    public boolean isSplit() {
+        return this.secondaryTextArea != null;
+    }
+
+    /**
+     * Splits the panel into two views of the same document, or joins them again.
+     * The second view shares the main text area's Document, so it adds only
+     * its own view state; edits in either view repaint just the changed
+     * lines of the other.
+     *
+     * @param split true to show two views, false to show only the main one
+     */
+    public void setSplit(boolean split) {
+        if (split == isSplit()) {
+            return;
+        }
+
+        if (split) {
+            // Create the second view on the shared document, starting at the same caret
+            this.secondaryTextArea = new EditorTextArea(textArea.getDocument());
+            secondaryTextArea.setFont(textArea.getFont());
+            secondaryTextArea.setLineWrap(textArea.getLineWrap());
+            secondaryTextArea.setWrapStyleWord(textArea.getWrapStyleWord());
+            secondaryTextArea.setEditable(textArea.isEditable());
+            secondaryTextArea.setCaretPosition(textArea.getCaretPosition());
+
+            this.secondaryScrollPane = new JScrollPane(secondaryTextArea);
+            secondaryScrollPane.setHorizontalScrollBarPolicy(scrollPane.getHorizontalScrollBarPolicy());
+            secondaryScrollPane.setVerticalScrollBarPolicy(scrollPane.getVerticalScrollBarPolicy());
+
+            // Stack the views vertically, sharing the height equally
+            remove(scrollPane);
+            this.splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, scrollPane, secondaryScrollPane);
+            splitPane.setResizeWeight(0.5);
+            add(splitPane, BorderLayout.CENTER);
+        } else {
+            remove(splitPane);
+            splitPane.removeAll();
+            add(scrollPane, BorderLayout.CENTER);
+
+            // Detach the second view from the shared document so it can be collected
+            secondaryTextArea.setDocument(new PlainDocument());
+            this.secondaryTextArea = null;
+            this.secondaryScrollPane = null;
+            this.splitPane = null;
+        }
+
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Sets the font of all views.
+     *
+     * @param font the new editor font
+     */
+    public void setEditorFont(Font font) {
+        for (JTextArea area : getTextAreas()) {
+            area.setFont(font);
+        }
+    }
+
+    /**
+     * Sets whether the text can be edited in any view.
+     *
+     * @param editable true to allow editing, false to make all views read-only
+     */
+    public void setEditable(boolean editable) {
+        for (JTextArea area : getTextAreas()) {
+            area.setEditable(editable);
+        }
+    }
+
+    /**
+     * Gets the scroll pane wrapping the text area.
+     *
+     * @return the JScrollPane whose viewport shows the text area
+     */
+    public JScrollPane getScrollPane() {
+        return this.scrollPane;
+    }
+
+    /**
+     * Enables or disables soft wrapping of long lines in all views.
+     * Without wrapping, a horizontal scroll bar is shown when needed.
+     *
+     * @param enabled true to wrap lines at word boundaries, false to disable wrapping
+     */
+    public void setSoftWrap(boolean enabled) {
+        int policy = enabled
+            ? JScrollPane.HORIZONTAL_SCROLLBAR_NEVER
+            : JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED;
+
+        textArea.setLineWrap(enabled);
+        scrollPane.setHorizontalScrollBarPolicy(policy);
+
+        if (secondaryTextArea != null) {
+            secondaryTextArea.setLineWrap(enabled);
+            secondaryScrollPane.setHorizontalScrollBarPolicy(policy);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package controller;
+
+import java.io.IOException;
+import java.util.Random;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
+import service.CollaborationClient;
+import service.CollaborationServer;
+
+/**
+ * Checks that concurrent edits converge across the peers of a collaboration session.
+ * Several peers connect to one relay server over the loopback interface. In
+ * each round every peer makes a one-character edit at the same time, mostly
+ * inserts at one shared position so that inserts tie. The UI thread is then
+ * held briefly, so the remote operations of the round reach each peer as one
+ * batch. After each round, all documents must hold the same text.
+ *
+ * Runs without a test framework: exits with status 1 on the first failure.
+ */
+public class CollaborationConvergenceTest {
+
+    private static final int PEERS = 4;
+    private static final int ROUNDS = 100;
+    /** Time allowed for a round's edits to reach every peer. */
+    private static final long SETTLE_MILLIS = 3000;
+
+    /** Error reported by a session that ended, or null */
+    private static volatile IOException failure;
+
+    /**
+     * Runs the test.
+     *
+     * @param args  the random seed, optionally
+     * @throws Exception if the test cannot run
+     */
+    public static void main(String[] args) throws Exception {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 1;
+        Random random = new Random(seed);
+
+        CollaborationServer server = new CollaborationServer(0, "ab");
+        PlainDocument[] documents = new PlainDocument[PEERS];
+        CollaborationSession[] sessions = new CollaborationSession[PEERS];
+
+        for (int i = 0; i < PEERS; i++) {
+            CollaborationClient client = new CollaborationClient("localhost", server.getPort());
+            PlainDocument document = new PlainDocument();
+            document.insertString(0, client.getText(), null);
+            documents[i] = document;
+
+            int peer = i;
+            SwingUtilities.invokeAndWait(() -> sessions[peer] = new CollaborationSession(
+                document,
+                client,
+                null,
+                e -> failure = e,
+                () -> {}
+            ));
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            int position = random.nextInt(documents[0].getLength() + 1);
+
+            // Every peer edits before any of them has seen the others' edits
+            SwingUtilities.invokeAndWait(() -> {
+                for (PlainDocument document : documents) {
+                    edit(document, position, random);
+                }
+            });
+
+            // Let the batches go out, then hold the UI thread so replies queue up
+            Thread.sleep(40);
+            SwingUtilities.invokeAndWait(() -> sleep(60));
+
+            if (!awaitConvergence(documents)) {
+                fail("round " + round + " (seed " + seed + "): " + String.join(" | ", texts(documents)));
+            }
+        }
+
+        SwingUtilities.invokeAndWait(() -> {
+            for (CollaborationSession session : sessions) {
+                session.close();
+            }
+        });
+        server.close();
+        System.out.println("OK: " + ROUNDS + " rounds with " + PEERS + " peers converged");
+        System.exit(0);
+    }
+
+    /**
+     * Makes a one-character edit: usually an insert at the shared position,
+     * sometimes a deletion.
+     *
+     * @param document  the document to edit
+     * @param position  the shared insert position
+     * @param random    the source of randomness
+     */
+    private static void edit(PlainDocument document, int position, Random random) {
+        try {
+            int length = document.getLength();
+            if (length > 0 && random.nextInt(4) == 0) {
+                document.remove(random.nextInt(length), 1);
+            } else {
+                String text = String.valueOf((char) ('a' + random.nextInt(26)));
+                document.insertString(Math.min(position, length), text, null);
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Waits until all documents hold the same text.
+     *
+     * @param documents  the documents of the peers
+     * @return           true if they converged in time, false otherwise
+     * @throws Exception if reading the documents fails
+     */
+    private static boolean awaitConvergence(PlainDocument[] documents) throws Exception {
+        long deadline = System.currentTimeMillis() + SETTLE_MILLIS;
+
+        while (System.currentTimeMillis() < deadline) {
+            if (failure != null) {
+                fail("session ended: " + failure.getMessage());
+            }
+
+            boolean[] same = new boolean[1];
+            SwingUtilities.invokeAndWait(() -> {
+                String first = texts(documents)[0];
+                same[0] = true;
+                for (String text : texts(documents)) {
+                    same[0] &= text.equals(first);
+                }
+            });
+            if (same[0]) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    /**
+     * Gets the texts of all documents.
+     *
+     * @param documents  the documents
+     * @return           their texts, in peer order
+     */
+    private static String[] texts(PlainDocument[] documents) {
+        String[] texts = new String[documents.length];
+        for (int i = 0; i < documents.length; i++) {
+            try {
+                texts[i] = documents[i].getText(0, documents[i].getLength());
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return texts;
+    }
+
+    /**
+     * Reports a failure and exits.
+     *
+     * @param message  what went wrong
+     */
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+
+    /**
+     * Sleeps without throwing.
+     *
+     * @param millis  the time to sleep
+     */
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}